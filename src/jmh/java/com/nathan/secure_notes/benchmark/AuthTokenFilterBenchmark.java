@@ -0,0 +1,105 @@
+package com.nathan.secure_notes.benchmark;
+
+import com.nathan.secure_notes.model.AppRole;
+import com.nathan.secure_notes.model.Role;
+import com.nathan.secure_notes.model.User;
+import com.nathan.secure_notes.repository.RevokedTokenRepository;
+import com.nathan.secure_notes.repository.UserRepository;
+import com.nathan.secure_notes.security.AuthTokenFilter;
+import com.nathan.secure_notes.security.JwtUtils;
+import com.nathan.secure_notes.security.TokenRevocationList;
+import com.nathan.secure_notes.security.UserDetailsCache;
+import com.nathan.secure_notes.security.UserSecurityVersions;
+import com.nathan.secure_notes.security.VerifiedTokenCache;
+import com.nathan.secure_notes.service.impl.UserDetailsImpl;
+import com.nathan.secure_notes.service.impl.UserDetailsServiceImpl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end cost of AuthTokenFilter for one authenticated request
+ *
+ * Runs the real filter, token cache, user cache and JwtUtils; only UserRepository is a mock
+ * that answers immediately, so database time is excluded. mode selects the path taken:
+ * cached is a token already in the VerifiedTokenCache, verify forces a signature check and
+ * user lookup every time by invalidating the user first, and stateless is the same with
+ * spring.app.statelessAuth=true so the principal is built from the claims.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthTokenFilterBenchmark {
+
+    private static final String USERNAME = "benchmark-user";
+    private static final FilterChain NOOP_CHAIN = (request, response) -> { };
+
+    @Param({"cached", "verify", "stateless"})
+    public String mode;
+
+    private AuthTokenFilter filter;
+    private VerifiedTokenCache verifiedTokenCache;
+    private UserDetailsCache userDetailsCache;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private boolean invalidateEachRequest;
+
+    @Setup
+    public void setUp() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        User user = new User(USERNAME, "benchmark@example.com", "password");
+        user.setUserId(1L);
+        user.setRole(new Role(AppRole.ROLE_USER));
+
+        UserRepository userRepository = Mockito.mock(UserRepository.class, Mockito.withSettings().stubOnly());
+        Mockito.when(userRepository.findByUsername(USERNAME)).thenReturn(Optional.of(user));
+
+        JwtUtils jwtUtils = JwtUtilsBenchmark.newJwtUtils(meterRegistry);
+        UserSecurityVersions userSecurityVersions = new UserSecurityVersions(10000, 3600);
+        userSecurityVersions.record(USERNAME, user.getSecurityVersion());
+        userDetailsCache = new UserDetailsCache(10000, 300, meterRegistry);
+        verifiedTokenCache = new VerifiedTokenCache(10000, meterRegistry);
+        UserDetailsServiceImpl userDetailsService = new UserDetailsServiceImpl(
+                userRepository, userSecurityVersions, userDetailsCache, new SyncTaskExecutor());
+
+        TokenRevocationList tokenRevocationList = new TokenRevocationList(
+                Mockito.mock(RevokedTokenRepository.class), verifiedTokenCache, 900000, 200000, meterRegistry);
+
+        filter = new AuthTokenFilter(jwtUtils, userDetailsService, verifiedTokenCache, userSecurityVersions,
+                tokenRevocationList);
+        ReflectionTestUtils.setField(filter, "statelessAuth", "stateless".equals(mode));
+        invalidateEachRequest = !"cached".equals(mode);
+
+        request = new MockHttpServletRequest("GET", "/api/notes");
+        request.addHeader("Authorization", "Bearer " + jwtUtils.generateTokenFromUsername(UserDetailsImpl.build(user)));
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public Authentication doFilter() throws Exception {
+        if (invalidateEachRequest) {
+            verifiedTokenCache.invalidateUser(USERNAME);
+            userDetailsCache.evict(USERNAME);
+        }
+        try {
+            filter.doFilter(request, response, NOOP_CHAIN);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
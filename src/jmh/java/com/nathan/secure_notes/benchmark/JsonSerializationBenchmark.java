@@ -0,0 +1,62 @@
+package com.nathan.secure_notes.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nathan.secure_notes.dto.responses.UserInfoResponse;
+import com.nathan.secure_notes.model.Notes;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing the most frequent response bodies
+ *
+ * Uses an ObjectMapper from Jackson2ObjectMapperBuilder, which registers the same modules
+ * Spring Boot's auto-configured mapper does. noteContentLength sets the size of the note body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"100", "4096"})
+    public int noteContentLength;
+
+    private ObjectMapper objectMapper;
+    private Notes note;
+    private UserInfoResponse userInfo;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        note = new Notes();
+        note.setId(42L);
+        note.setOwnerUserName("benchmark-user");
+        note.setContent("n".repeat(noteContentLength));
+        note.setContentLength(noteContentLength);
+        note.setCreatedAt(LocalDateTime.now());
+        note.setUpdatedAt(LocalDateTime.now());
+
+        userInfo = new UserInfoResponse(1L, "benchmark-user", "benchmark@example.com",
+                true, true, true, true,
+                LocalDate.now().plusYears(1), LocalDate.now().plusYears(1), false, List.of("ROLE_USER"));
+    }
+
+    @Benchmark
+    public byte[] note() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(note);
+    }
+
+    @Benchmark
+    public byte[] userInfo() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(userInfo);
+    }
+}
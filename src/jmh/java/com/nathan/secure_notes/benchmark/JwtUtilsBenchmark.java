@@ -0,0 +1,78 @@
+package com.nathan.secure_notes.benchmark;
+
+import com.nathan.secure_notes.security.JwtClaims;
+import com.nathan.secure_notes.security.JwtUtils;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of authenticating a bearer token, and of issuing one at sign-in
+ *
+ * legacyValidateThenExtract reproduces the old AuthTokenFilter path (decode the secret,
+ * build a parser and verify the signature twice), verifySinglePass is the current
+ * JwtUtils.verifyJwtToken path with the prebuilt key and parser. generate is
+ * JwtUtils.generateTokenFromUsername as called by AuthController on sign-in.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilsBenchmark {
+
+    static final String JWT_SECRET = "mySecretKey123912738aopsgjnspkmndfsopkvajoirjg94gf2opfng2moknm";
+
+    private JwtUtils jwtUtils;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = newJwtUtils();
+        user = new User("benchmark-user", "password", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        token = jwtUtils.generateTokenFromUsername(user);
+    }
+
+    static JwtUtils newJwtUtils() {
+        return newJwtUtils(new SimpleMeterRegistry());
+    }
+
+    static JwtUtils newJwtUtils(MeterRegistry meterRegistry) {
+        JwtUtils jwtUtils = new JwtUtils(meterRegistry);
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", JWT_SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 86400000);
+        ReflectionTestUtils.invokeMethod(jwtUtils, "init");
+        return jwtUtils;
+    }
+
+    @Benchmark
+    public String legacyValidateThenExtract() {
+        SecretKey validateKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(JWT_SECRET));
+        Jwts.parser().verifyWith(validateKey).build().parseSignedClaims(token);
+        SecretKey extractKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(JWT_SECRET));
+        return Jwts.parser().verifyWith(extractKey).build().parseSignedClaims(token).getPayload().getSubject();
+    }
+
+    @Benchmark
+    public Optional<JwtClaims> verifySinglePass() {
+        return jwtUtils.verifyJwtToken(token);
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtUtils.generateTokenFromUsername(user);
+    }
+}
@@ -0,0 +1,61 @@
+package com.nathan.secure_notes.benchmark;
+
+import com.nathan.secure_notes.security.JwtClaims;
+import com.nathan.secure_notes.security.JwtUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the always-on instrumentation
+ *
+ * noop runs against an empty CompositeMeterRegistry, where every meter is a no-op;
+ * prometheus runs against the registry used in production. The difference in verifyJwtToken
+ * is the price of the jwt.verify timer on every authenticated request, and recordTimer
+ * isolates a single timer recording as used by the notes.service and repository timers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    @Param({"noop", "prometheus"})
+    public String registry;
+
+    private JwtUtils jwtUtils;
+    private String token;
+    private Timer timer;
+
+    @Setup
+    public void setUp() {
+        MeterRegistry meterRegistry = "prometheus".equals(registry)
+                ? new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)
+                : new CompositeMeterRegistry();
+        jwtUtils = JwtUtilsBenchmark.newJwtUtils(meterRegistry);
+        token = jwtUtils.generateTokenFromUsername(
+                new User("benchmark-user", "password", List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+        timer = meterRegistry.timer("benchmark.timer", "outcome", "valid");
+    }
+
+    @Benchmark
+    public Optional<JwtClaims> verifyJwtToken() {
+        return jwtUtils.verifyJwtToken(token);
+    }
+
+    @Benchmark
+    public void recordTimer() {
+        timer.record(150, TimeUnit.MICROSECONDS);
+    }
+}
@@ -0,0 +1,135 @@
+package com.nathan.secure_notes.benchmark;
+
+import com.nathan.secure_notes.model.Notes;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency of creating a note as the notes table grows
+ *
+ * Each trial fills a scratch copy of the notes table with rowCount notes spread over 1000 owners,
+ * then measures the create path of NoteServiceImpl: the duplicate check followed by the insert.
+ * hashDuplicateCheck uses the (owner_user_name, content_hash) unique index and should stay flat
+ * across row counts; legacyContentDuplicateCheck compares the LONGTEXT column as the old
+ * findByContentAndOwnerUserName did and grows with the owner's notes.
+ *
+ * Needs a MySQL database, set with -Djmh.jdbc.url, -Djmh.jdbc.user and -Djmh.jdbc.password
+ * (defaults: local secureNotesBench, root/root). Filling 10M rows takes a while.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NoteCreateBenchmark {
+
+    private static final String TABLE = "notes_create_benchmark";
+    private static final int OWNERS = 1000;
+    private static final int INSERT_BATCH = 10_000;
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int rowCount;
+
+    private Connection connection;
+    private PreparedStatement existsByHash;
+    private PreparedStatement existsByContent;
+    private PreparedStatement insert;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection(
+                System.getProperty("jmh.jdbc.url",
+                        "jdbc:mysql://localhost:3306/secureNotesBench?rewriteBatchedStatements=true"),
+                System.getProperty("jmh.jdbc.user", "root"),
+                System.getProperty("jmh.jdbc.password", "root"));
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + TABLE);
+            statement.execute("CREATE TABLE " + TABLE + " ("
+                    + "id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                    + "content LONGTEXT, "
+                    + "owner_user_name VARCHAR(255), "
+                    + "content_hash VARCHAR(64), "
+                    + "UNIQUE KEY uk_notes_owner_content_hash (owner_user_name, content_hash))");
+        }
+        insert = connection.prepareStatement(
+                "INSERT INTO " + TABLE + " (content, owner_user_name, content_hash) VALUES (?, ?, ?)");
+        connection.setAutoCommit(false);
+        for (int i = 0; i < rowCount; i++) {
+            bindNote(i);
+            insert.addBatch();
+            if ((i + 1) % INSERT_BATCH == 0) {
+                insert.executeBatch();
+                connection.commit();
+            }
+        }
+        insert.executeBatch();
+        connection.commit();
+        connection.setAutoCommit(true);
+        sequence.set(rowCount);
+
+        existsByHash = connection.prepareStatement(
+                "SELECT 1 FROM " + TABLE + " WHERE owner_user_name = ? AND content_hash = ? LIMIT 1");
+        existsByContent = connection.prepareStatement(
+                "SELECT 1 FROM " + TABLE + " WHERE owner_user_name = ? AND content = ? LIMIT 1");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + TABLE);
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public boolean hashDuplicateCheck() throws SQLException {
+        long i = sequence.getAndIncrement();
+        existsByHash.setString(1, owner(i));
+        existsByHash.setString(2, Notes.hashContent(content(i)));
+        return create(existsByHash, i);
+    }
+
+    @Benchmark
+    public boolean legacyContentDuplicateCheck() throws SQLException {
+        long i = sequence.getAndIncrement();
+        existsByContent.setString(1, owner(i));
+        existsByContent.setString(2, content(i));
+        return create(existsByContent, i);
+    }
+
+    private boolean create(PreparedStatement duplicateCheck, long i) throws SQLException {
+        try (ResultSet resultSet = duplicateCheck.executeQuery()) {
+            if (resultSet.next()) {
+                return false;
+            }
+        }
+        bindNote(i);
+        insert.executeUpdate();
+        return true;
+    }
+
+    private void bindNote(long i) throws SQLException {
+        String content = content(i);
+        insert.setString(1, content);
+        insert.setString(2, owner(i));
+        insert.setString(3, Notes.hashContent(content));
+    }
+
+    private static String owner(long i) {
+        return "user" + (i % OWNERS);
+    }
+
+    private static String content(long i) {
+        return "Benchmark note " + i + " with enough text to look like a short real note body.";
+    }
+}
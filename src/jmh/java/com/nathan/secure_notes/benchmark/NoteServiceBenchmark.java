@@ -0,0 +1,117 @@
+package com.nathan.secure_notes.benchmark;
+
+import com.nathan.secure_notes.SecureNotesApplication;
+import com.nathan.secure_notes.dto.responses.NotePageResponse;
+import com.nathan.secure_notes.dto.responses.NoteSummary;
+import com.nathan.secure_notes.model.Notes;
+import com.nathan.secure_notes.repository.NoteRepository;
+import com.nathan.secure_notes.service.NoteService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * NoteServiceImpl through the full Spring/JPA stack against an in-memory H2 database
+ *
+ * Starts the application with the h2 profile (in-memory H2 in MySQL mode), seeds noteCount notes
+ * for one owner and measures the service calls behind the notes endpoints. Absolute
+ * numbers are not comparable with MySQL; use them to spot regressions in the service,
+ * repository queries and Hibernate settings between releases.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NoteServiceBenchmark {
+
+    private static final String OWNER = "benchmark-user";
+    private static final int SEED_BATCH = 500;
+
+    @Param({"1000", "100000"})
+    public int noteCount;
+
+    private ConfigurableApplicationContext context;
+    private NoteService noteService;
+    private Path indexDir;
+    private final List<Long> noteIds = new ArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        indexDir = Files.createTempDirectory("notes-index-bench");
+        context = new SpringApplicationBuilder(SecureNotesApplication.class)
+                .profiles("h2")
+                .run("--server.port=0",
+                        "--spring.app.accessLogEnabled=false",
+                        "--spring.app.searchIndexDir=" + indexDir,
+                        "--logging.level.root=WARN");
+        noteService = context.getBean(NoteService.class);
+
+        NoteRepository noteRepository = context.getBean(NoteRepository.class);
+        List<Notes> batch = new ArrayList<>(SEED_BATCH);
+        for (int i = 0; i < noteCount; i++) {
+            Notes note = new Notes();
+            note.setOwnerUserName(OWNER);
+            note.setContent(content(sequence.getAndIncrement()));
+            batch.add(note);
+            if (batch.size() == SEED_BATCH || i == noteCount - 1) {
+                noteRepository.saveAll(batch).forEach(saved -> noteIds.add(saved.getId()));
+                batch.clear();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        try (var paths = Files.walk(indexDir)) {
+            paths.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Notes create() {
+        Notes note = new Notes();
+        note.setContent(content(sequence.getAndIncrement()));
+        return noteService.createNoteForUser(note, OWNER);
+    }
+
+    @Benchmark
+    public Notes getById() {
+        return noteService.getNoteForUser(randomNoteId(), OWNER);
+    }
+
+    @Benchmark
+    public NotePageResponse<Notes> firstPage() {
+        return noteService.getNotesPageForUser(OWNER, null, null);
+    }
+
+    @Benchmark
+    public NotePageResponse<Notes> pageFromMiddle() {
+        return noteService.getNotesPageForUser(OWNER, noteIds.get(noteIds.size() / 2), null);
+    }
+
+    @Benchmark
+    public NotePageResponse<NoteSummary> summariesFirstPage() {
+        return noteService.getNoteSummariesForUser(OWNER, null, null);
+    }
+
+    private Long randomNoteId() {
+        return noteIds.get(ThreadLocalRandom.current().nextInt(noteIds.size()));
+    }
+
+    private static String content(long i) {
+        return "Benchmark note " + i + " with enough text to look like a short real note body.";
+    }
+}
@@ -0,0 +1,60 @@
+package com.nathan.secure_notes.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of hashing and verifying a password per algorithm and parameter set
+ *
+ * Each encoder value mirrors a spring.app.passwordEncoder configuration: bcrypt-N is
+ * spring.app.bcryptStrength=N, argon2-M-T-P is spring.app.argon2MemoryKb=M,
+ * spring.app.argon2Iterations=T and spring.app.argon2Parallelism=P. Pick the strongest set
+ * whose verify time, multiplied by the expected queueing on PasswordHashingPool, still fits
+ * the login latency budget. encode is the cost paid on sign-up, password change and rehash.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"bcrypt-10", "bcrypt-12", "argon2-19456-2-1", "argon2-47104-1-1", "argon2-65536-3-4"})
+    public String encoder;
+
+    private PasswordEncoder passwordEncoder;
+    private String encodedPassword;
+
+    @Setup
+    public void setUp() {
+        passwordEncoder = newEncoder(encoder);
+        encodedPassword = passwordEncoder.encode(PASSWORD);
+    }
+
+    static PasswordEncoder newEncoder(String spec) {
+        String[] parts = spec.split("-");
+        return switch (parts[0]) {
+            case "bcrypt" -> new BCryptPasswordEncoder(Integer.parseInt(parts[1]));
+            case "argon2" -> new Argon2PasswordEncoder(16, 32,
+                    Integer.parseInt(parts[3]), Integer.parseInt(parts[1]), Integer.parseInt(parts[2]));
+            default -> throw new IllegalArgumentException("Unknown encoder " + spec);
+        };
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return passwordEncoder.matches(PASSWORD, encodedPassword);
+    }
+
+    @Benchmark
+    public String encode() {
+        return passwordEncoder.encode(PASSWORD);
+    }
+}
@@ -0,0 +1,51 @@
+package com.nathan.secure_notes.benchmark;
+
+import com.nathan.secure_notes.security.custom.TokenBucketLimiter;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of TokenBucketLimiter.tryAcquire under contention from 64 threads
+ *
+ * hotKey has every thread take tokens from the same bucket, the worst case for CAS
+ * contention; spreadKeys draws from keyCount clients as real traffic would. The buckets
+ * are sized so that some calls are admitted and some rejected, both of which are measured.
+ * Compare with the per-request latency budget: the limiter should cost well under a
+ * microsecond even on the hot key.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(64)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    @Param({"1000", "100000"})
+    public int keyCount;
+
+    private TokenBucketLimiter limiter;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        limiter = new TokenBucketLimiter("benchmark", 100, 6_000_000, keyCount * 2);
+        keys = new String[keyCount];
+        for (int i = 0; i < keyCount; i++) {
+            keys[i] = "ip:10.0." + (i / 256) + "." + (i % 256);
+        }
+    }
+
+    @Benchmark
+    public long hotKey() {
+        return limiter.tryAcquire(keys[0]);
+    }
+
+    @Benchmark
+    public long spreadKeys() {
+        return limiter.tryAcquire(keys[ThreadLocalRandom.current().nextInt(keyCount)]);
+    }
+}
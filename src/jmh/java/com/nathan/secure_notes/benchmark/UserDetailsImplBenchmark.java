@@ -0,0 +1,35 @@
+package com.nathan.secure_notes.benchmark;
+
+import com.nathan.secure_notes.model.AppRole;
+import com.nathan.secure_notes.model.Role;
+import com.nathan.secure_notes.model.User;
+import com.nathan.secure_notes.service.impl.UserDetailsImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning a User entity into the security principal, paid on every user cache miss
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserDetailsImplBenchmark {
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = new User("benchmark-user", "benchmark@example.com", "{bcrypt}$2a$10$benchmarkbenchmarkbenchmarkbenchmarkbenchmarkbenchm");
+        user.setUserId(1L);
+        user.setRole(new Role(AppRole.ROLE_USER));
+    }
+
+    @Benchmark
+    public UserDetailsImpl build() {
+        return UserDetailsImpl.build(user);
+    }
+}
@@ -0,0 +1,353 @@
+package com.nathan.secure_notes.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nathan.secure_notes.SecureNotesApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.CookiePolicy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop HTTP load test of the notes API
+ *
+ * Signs up and logs in a number of users, gives each a few notes, then runs every user on its
+ * own virtual thread, issuing a weighted random mix of create, list, get, update and delete
+ * calls against NotesController back to back for the configured duration. Requests made during
+ * the warmup are not recorded. Throughput and latency percentiles per operation are printed and
+ * written as JSON to resultFile so runs can be compared. The in-process server shares the
+ * machine with the client; for baseline numbers start the server separately and pass baseUrl.
+ *
+ * Arguments are key=value pairs:
+ *   baseUrl       Server to test; if absent the application is started in-process. An external
+ *                 server needs spring.app.rateLimitEnabled=false or every user shares one IP bucket
+ *   profiles      Profiles for the in-process application (default h2); e.g. "default" and "prod"
+ *                 against the same MySQL compare the persistence settings
+ *   users         Concurrent virtual users (default 50)
+ *   duration      Measured seconds (default 60)
+ *   warmup        Unrecorded seconds before measuring (default 10)
+ *   seedNotes     Notes created per user before the run (default 20)
+ *   mix           Operation weights (default create=20,list=35,get=25,update=15,delete=5)
+ *   resultFile    Where to write the JSON report (default target/loadtest-result.json)
+ */
+public class NotesLoadTest {
+
+    enum Operation { CREATE, LIST, GET, UPDATE, DELETE }
+
+    private static final String DEFAULT_MIX = "create=20,list=35,get=25,update=15,delete=5";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final Map<String, String> settings;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    private String csrfHeader;
+    private String csrfToken;
+
+    NotesLoadTest(String baseUrl, Map<String, String> settings) {
+        this.baseUrl = baseUrl;
+        this.settings = settings;
+        this.httpClient = HttpClient.newBuilder()
+                .cookieHandler(new CookieManager(null, CookiePolicy.ACCEPT_ALL))
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> settings = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected key=value but got " + arg);
+            }
+            settings.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+
+        ConfigurableApplicationContext application = null;
+        String baseUrl = settings.get("baseUrl");
+        if (baseUrl == null) {
+            application = new SpringApplicationBuilder(SecureNotesApplication.class)
+                    .profiles(settings.getOrDefault("profiles", "h2").split(","))
+                    .run("--server.port=0", "--logging.level.root=WARN",
+                            // Every virtual user shares one IP and writes far above any per-user policy
+                            "--spring.app.rateLimitEnabled=false");
+            baseUrl = "http://localhost:" + application.getEnvironment().getProperty("local.server.port");
+        }
+        try {
+            new NotesLoadTest(baseUrl, settings).run();
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+        }
+    }
+
+    void run() throws Exception {
+        int userCount = intSetting("users", 50);
+        long durationNanos = TimeUnit.SECONDS.toNanos(intSetting("duration", 60));
+        long warmupNanos = TimeUnit.SECONDS.toNanos(intSetting("warmup", 10));
+        int seedNotes = intSetting("seedNotes", 20);
+        Map<Operation, Integer> mix = parseMix(settings.getOrDefault("mix", DEFAULT_MIX));
+
+        fetchCsrfToken();
+
+        LatencyStats signups = new LatencyStats();
+        LatencyStats signins = new LatencyStats();
+        List<VirtualUser> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            users.add(new VirtualUser("lt" + runId + "-" + i, mix));
+        }
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> setups = new ArrayList<>(userCount);
+            for (VirtualUser user : users) {
+                setups.add(executor.submit(() -> {
+                    user.signUpAndSignIn();
+                    user.seed(seedNotes);
+                    return null;
+                }));
+            }
+            for (Future<?> setup : setups) {
+                setup.get();
+            }
+        }
+        users.forEach(user -> {
+            signups.merge(user.signup);
+            signins.merge(user.signin);
+        });
+
+        long start = System.nanoTime();
+        long measureFrom = start + warmupNanos;
+        long end = measureFrom + durationNanos;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (VirtualUser user : users) {
+                executor.submit(() -> {
+                    user.drive(measureFrom, end);
+                    return null;
+                });
+            }
+        }
+
+        Map<Operation, LatencyStats> totals = new EnumMap<>(Operation.class);
+        LatencyStats all = new LatencyStats();
+        for (Operation operation : Operation.values()) {
+            LatencyStats merged = new LatencyStats();
+            users.forEach(user -> merged.merge(user.stats.get(operation)));
+            totals.put(operation, merged);
+            all.merge(merged);
+        }
+        report(userCount, durationNanos, signups, signins, totals, all);
+    }
+
+    private void report(int userCount, long durationNanos, LatencyStats signups, LatencyStats signins,
+                        Map<Operation, LatencyStats> totals, LatencyStats all) throws IOException {
+        Map<String, Object> operations = new LinkedHashMap<>();
+        totals.forEach((operation, stats) ->
+                operations.put(operation.name().toLowerCase(), stats.summarize(durationNanos)));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("baseUrl", baseUrl);
+        report.put("users", userCount);
+        report.put("durationSeconds", TimeUnit.NANOSECONDS.toSeconds(durationNanos));
+        report.put("mix", settings.getOrDefault("mix", DEFAULT_MIX));
+        report.put("total", all.summarize(durationNanos));
+        report.put("operations", operations);
+        // Setup runs before the measured window, so only its latencies are meaningful
+        report.put("signup", signups.summarize(durationNanos));
+        report.put("signin", signins.summarize(durationNanos));
+
+        String json = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(report);
+        Path resultFile = Path.of(settings.getOrDefault("resultFile", "target/loadtest-result.json"));
+        if (resultFile.getParent() != null) {
+            Files.createDirectories(resultFile.getParent());
+        }
+        Files.writeString(resultFile, json);
+        System.out.println(json);
+        System.out.println("Written to " + resultFile.toAbsolutePath());
+    }
+
+    /**
+     * The notes endpoints are CSRF protected; one token, with its cookie held by the shared
+     * client, is valid for every user since authentication itself is by bearer token
+     */
+    private void fetchCsrfToken() throws IOException, InterruptedException {
+        HttpResponse<String> response = send(request("/api/csrf", null).GET().build());
+        JsonNode token = objectMapper.readTree(response.body());
+        csrfHeader = token.get("headerName").asText();
+        csrfToken = token.get("token").asText();
+    }
+
+    private HttpRequest.Builder request(String path, String jwt) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                // RequestValidationFilter rejects requests without it
+                .header("X-Valid-Request", "true")
+                .header("Content-Type", "application/json");
+        if (jwt != null) {
+            builder.header("Authorization", "Bearer " + jwt);
+        }
+        if (csrfToken != null) {
+            builder.header(csrfHeader, csrfToken);
+        }
+        return builder;
+    }
+
+    private HttpResponse<String> send(HttpRequest request) throws IOException, InterruptedException {
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private int intSetting(String key, int defaultValue) {
+        String value = settings.get(key);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+
+    /**
+     * One simulated user; only ever used from its own thread
+     */
+    private class VirtualUser {
+
+        private final String username;
+        private final Operation[] weighted;
+        private final Random random;
+        private final List<Long> noteIds = new ArrayList<>();
+        private final Map<Operation, LatencyStats> stats = new EnumMap<>(Operation.class);
+        private final LatencyStats signup = new LatencyStats();
+        private final LatencyStats signin = new LatencyStats();
+        private String jwt;
+        private long contentSequence;
+
+        VirtualUser(String username, Map<Operation, Integer> mix) {
+            this.username = username;
+            this.random = new Random(username.hashCode());
+            List<Operation> operations = new ArrayList<>();
+            mix.forEach((operation, weight) -> {
+                for (int i = 0; i < weight; i++) {
+                    operations.add(operation);
+                }
+            });
+            this.weighted = operations.toArray(Operation[]::new);
+            for (Operation operation : Operation.values()) {
+                stats.put(operation, new LatencyStats());
+            }
+        }
+
+        void signUpAndSignIn() throws IOException, InterruptedException {
+            String password = "Pw-" + username;
+            Map<String, Object> signupBody = Map.of(
+                    "username", username,
+                    "email", username + "@loadtest.local",
+                    "password", password);
+            timed(signup, request("/api/auth/public/signup", null)
+                    .POST(body(signupBody)).build());
+
+            HttpResponse<String> response = timed(signin, request("/api/auth/public/signin", null)
+                    .POST(body(Map.of("username", username, "password", password))).build());
+            if (response == null) {
+                throw new IllegalStateException("Sign-in failed for " + username);
+            }
+            jwt = objectMapper.readTree(response.body()).get("jwtToken").asText();
+        }
+
+        void seed(int notes) throws IOException, InterruptedException {
+            for (int i = 0; i < notes; i++) {
+                create(null);
+            }
+        }
+
+        void drive(long measureFrom, long end) throws IOException, InterruptedException {
+            long now;
+            while ((now = System.nanoTime()) < end) {
+                Operation operation = weighted[random.nextInt(weighted.length)];
+                if (noteIds.isEmpty() && operation != Operation.LIST) {
+                    operation = Operation.CREATE;
+                }
+                LatencyStats target = now >= measureFrom ? stats.get(operation) : null;
+                switch (operation) {
+                    case CREATE -> create(target);
+                    case LIST -> timed(target, request("/api/notes/page?size=20", jwt).GET().build());
+                    case GET -> timed(target, request("/api/notes/" + randomNoteId(), jwt).GET().build());
+                    case UPDATE -> timed(target, request("/api/notes/update/" + randomNoteId(), jwt)
+                            .PUT(body(Map.of("content", nextContent()))).build());
+                    case DELETE -> {
+                        Long noteId = noteIds.remove(random.nextInt(noteIds.size()));
+                        timed(target, request("/api/notes/delete/" + noteId, jwt).DELETE().build());
+                    }
+                }
+            }
+        }
+
+        private void create(LatencyStats target) throws IOException, InterruptedException {
+            HttpResponse<String> response = timed(target, request("/api/notes/create", jwt)
+                    .POST(body(Map.of("content", nextContent()))).build());
+            if (response != null) {
+                noteIds.add(objectMapper.readTree(response.body()).get("id").asLong());
+            }
+        }
+
+        private Long randomNoteId() {
+            return noteIds.get(random.nextInt(noteIds.size()));
+        }
+
+        /**
+         * Unique per user, since duplicate content is rejected; sized like a short real note
+         */
+        private String nextContent() {
+            return "Load test note " + (contentSequence++) + " of " + username
+                    + ". Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor.";
+        }
+
+        /**
+         * Sends a request and records its latency in target, if given
+         *
+         * @return The response, or null if the status was not 2xx (counted as an error)
+         */
+        private HttpResponse<String> timed(LatencyStats target, HttpRequest request)
+                throws IOException, InterruptedException {
+            long start = System.nanoTime();
+            HttpResponse<String> response = send(request);
+            long latency = System.nanoTime() - start;
+            boolean success = response.statusCode() / 100 == 2;
+            if (target != null) {
+                if (success) {
+                    target.record(latency);
+                } else {
+                    target.recordError();
+                }
+            }
+            return success ? response : null;
+        }
+
+        private HttpRequest.BodyPublisher body(Object value) throws IOException {
+            return HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(value));
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.nathan.secure_notes.config;
+
+import com.nathan.secure_notes.model.Notes;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the notes_seq id generator past ids assigned before Notes switched from IDENTITY
+ *
+ * MySQL has no sequences, so Hibernate keeps notes_seq as a single-row table. Schema update
+ * creates it starting at 1, which would collide with existing notes; this pushes it past the
+ * highest existing id plus one allocation block. It only ever moves the value forward.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class NoteIdSequenceInitializer {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    void alignWithExistingIds() {
+        jdbcTemplate.update("update notes_seq set next_val = greatest(next_val, " +
+                "(select coalesce(max(id), 0) + 1 + " + Notes.ID_ALLOCATION_SIZE + " from notes))");
+    }
+}
@@ -0,0 +1,66 @@
+package com.nathan.secure_notes.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Primary and replica connection pools behind a ReplicaRoutingDataSource
+ *
+ * Enabled with spring.app.replicaEnabled=true. The primary pool is configured as usual through
+ * spring.datasource.* and spring.datasource.hikari.*; the replica pool through
+ * spring.app.replicaDatasource.* using Hikari property names (jdbc-url, username, password,
+ * maximum-pool-size, ...). Both pools publish hikaricp.* metrics. Read-your-writes is tracked
+ * per instance, so with more than one instance each user's requests must be routed sticky.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.app.replicaEnabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.app.replica-datasource")
+    public HikariDataSource replicaDataSource() {
+        return DataSourceBuilder.create().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 @Value("${spring.app.replicaReadYourWritesMs:5000}") long readYourWritesMs) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(
+                primaryDataSource, replicaDataSource, Duration.ofMillis(readYourWritesMs)));
+    }
+
+    /**
+     * Spring Boot makes Hibernate hold a connection until the session closes, which with
+     * open-in-view is the end of the request. Routing is decided per connection, so a replica
+     * connection taken by a read would then also serve a later write in the same request;
+     * releasing it after each transaction lets every transaction be routed on its own.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionsAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
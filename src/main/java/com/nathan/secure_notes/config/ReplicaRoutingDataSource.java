@@ -0,0 +1,121 @@
+package com.nathan.secure_notes.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Sends read-only transactions to a replica and everything else to the primary
+ *
+ * The target is chosen when a connection is first used, so it must sit behind a
+ * LazyConnectionDataSourceProxy: by then the transaction's read-only flag is known.
+ * Connections outside a transaction always go to the primary.
+ *
+ * Read-your-writes: whenever a write transaction commits for an authenticated user, that user's
+ * read-only transactions go to the primary for spring.app.replicaReadYourWritesMs afterwards,
+ * so a note they just created or changed is never missing from their next list. The window
+ * starts at the commit and must exceed the replica's worst normal lag. Code that must never see
+ * replica data (e.g. the user lookup behind authentication) runs its reads inside onPrimary.
+ *
+ * The recent writers are held in memory, so read-your-writes only holds while a user's requests
+ * reach the instance that took their write: run a single instance, or route each user to the
+ * same instance (sticky sessions), when the replica is enabled.
+ *
+ * @see ReplicaDataSourceConfig
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target { PRIMARY, REPLICA }
+
+    private static final int PRUNE_THRESHOLD = 10_000;
+
+    private static final ThreadLocal<Boolean> primaryOnly = new ThreadLocal<>();
+
+    private final long readYourWritesNanos;
+
+    /**
+     * Username to System.nanoTime() of their last committed write transaction
+     */
+    private final Map<String, Long> recentWriters = new ConcurrentHashMap<>();
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, Duration readYourWrites) {
+        this.readYourWritesNanos = readYourWrites.toNanos();
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Runs the given work with every transaction it opens routed to the primary
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        Boolean previous = primaryOnly.get();
+        primaryOnly.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                primaryOnly.remove();
+            } else {
+                primaryOnly.set(previous);
+            }
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive() || primaryOnly.get() != null) {
+            return Target.PRIMARY;
+        }
+        String username = currentUsername();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (username != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        recordWrite(username);
+                    }
+                });
+            }
+            return Target.PRIMARY;
+        }
+        return username != null && wroteRecently(username) ? Target.PRIMARY : Target.REPLICA;
+    }
+
+    private void recordWrite(String username) {
+        long now = System.nanoTime();
+        recentWriters.put(username, now);
+        if (recentWriters.size() > PRUNE_THRESHOLD) {
+            recentWriters.values().removeIf(writtenAt -> now - writtenAt > readYourWritesNanos);
+        }
+    }
+
+    private boolean wroteRecently(String username) {
+        Long writtenAt = recentWriters.get(username);
+        if (writtenAt == null) {
+            return false;
+        }
+        if (System.nanoTime() - writtenAt <= readYourWritesNanos) {
+            return true;
+        }
+        recentWriters.remove(username, writtenAt);
+        return false;
+    }
+
+    private static String currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
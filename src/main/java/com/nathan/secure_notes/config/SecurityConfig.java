@@ -2,7 +2,17 @@ package com.nathan.secure_notes.config;
 
 import com.nathan.secure_notes.security.AuthEntryPointJwt;
 import com.nathan.secure_notes.security.AuthTokenFilter;
+import com.nathan.secure_notes.security.JwtUtils;
+import com.nathan.secure_notes.security.OffloadedPasswordEncoder;
+import com.nathan.secure_notes.security.PasswordHashingPool;
+import com.nathan.secure_notes.security.VerifiedTokenCache;
+import com.nathan.secure_notes.security.custom.AccessLogBuffer;
+import com.nathan.secure_notes.security.custom.AccessLogFilter;
+import com.nathan.secure_notes.security.custom.RateLimitFilter;
+import com.nathan.secure_notes.security.custom.RateLimiters;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -11,13 +21,17 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.AuthorizeHttpRequestsConfigurer;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Map;
+
 @Configuration
 @RequiredArgsConstructor
 @EnableMethodSecurity(
@@ -27,14 +41,46 @@ public class SecurityConfig {
 
     private final AuthEntryPointJwt unauthorizedHandler;
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
+    private final AuthTokenFilter authTokenFilter;
+
+    private final AccessLogBuffer accessLogBuffer;
+
+    private final RateLimiters rateLimiters;
+
+    private final JwtUtils jwtUtils;
 
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    @Value("${spring.app.rateLimitEnabled:true}")
+    private boolean rateLimitEnabled;
+
+    @Value("${spring.app.accessLogEnabled:true}")
+    private boolean accessLogEnabled;
+
+    @Value("${spring.app.accessLogSampleRate:1.0}")
+    private double accessLogSampleRate;
+
+    /**
+     * Delegating encoder: new hashes use spring.app.passwordEncoder ("bcrypt" or "argon2") with the
+     * configured parameters and carry an {id} prefix; existing unprefixed hashes are verified as BCrypt.
+     * Hashes using another algorithm or older parameters report upgradeEncoding, which makes the
+     * DaoAuthenticationProvider rehash them on the next successful login through
+     * UserDetailsServiceImpl.updatePassword. All hashing runs on the bounded PasswordHashingPool.
+     */
     @Bean
-    public AuthTokenFilter authenticationJwtTokenFilter() {
-        return new AuthTokenFilter();
+    public PasswordEncoder passwordEncoder(@Value("${spring.app.passwordEncoder:bcrypt}") String encoderId,
+                                           @Value("${spring.app.bcryptStrength:10}") int bcryptStrength,
+                                           @Value("${spring.app.argon2MemoryKb:19456}") int argon2MemoryKb,
+                                           @Value("${spring.app.argon2Iterations:2}") int argon2Iterations,
+                                           @Value("${spring.app.argon2Parallelism:1}") int argon2Parallelism,
+                                           PasswordHashingPool passwordHashingPool) {
+        PasswordEncoder bcrypt = new BCryptPasswordEncoder(bcryptStrength);
+        Map<String, PasswordEncoder> encoders = Map.of(
+                "bcrypt", bcrypt,
+                "argon2", new Argon2PasswordEncoder(16, 32, argon2Parallelism, argon2MemoryKb, argon2Iterations));
+        DelegatingPasswordEncoder delegatingEncoder = new DelegatingPasswordEncoder(encoderId, encoders);
+        delegatingEncoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return new OffloadedPasswordEncoder(delegatingEncoder, passwordHashingPool);
     }
 
     @Bean
@@ -46,7 +92,10 @@ public class SecurityConfig {
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http.authorizeHttpRequests((requests) -> (
                 (AuthorizeHttpRequestsConfigurer.AuthorizedUrl)requests
+                        // The streamed export completes on an async dispatch of a request already authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                        .requestMatchers("/actuator/usercache/**", "/actuator/metrics/**", "/actuator/prometheus").hasRole("ADMIN")
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/auth/public/**").permitAll()
                         .requestMatchers("/api/csrf").permitAll()
@@ -55,17 +104,22 @@ public class SecurityConfig {
 
         http.exceptionHandling(exception
                 -> exception.authenticationEntryPoint(unauthorizedHandler));
-        http.addFilterBefore(authenticationJwtTokenFilter(),
+        http.addFilterBefore(authTokenFilter,
                 UsernamePasswordAuthenticationFilter.class);
+        if (accessLogEnabled) {
+            http.addFilterBefore(new AccessLogFilter(accessLogBuffer, accessLogSampleRate),
+                    AuthTokenFilter.class);
+        }
+        if (rateLimitEnabled) {
+            http.addFilterBefore(new RateLimitFilter(rateLimiters, jwtUtils, verifiedTokenCache),
+                    AuthTokenFilter.class);
+        }
 
         http.csrf(csrf ->
                 csrf.csrfTokenRepository(CookieCsrfTokenRepository.withHttpOnlyFalse())
                         .ignoringRequestMatchers("/api/auth/public/**")
         );
 
-
-//        http.addFilterBefore(new CustomLoggingFilter(), UsernamePasswordAuthenticationFilter.class);
-//        http.addFilterAfter(new RequestValidationFilter(), CustomLoggingFilter.class);
         //http.formLogin(Customizer.withDefaults());
         http.httpBasic(Customizer.withDefaults());
         return (SecurityFilterChain)http.build();
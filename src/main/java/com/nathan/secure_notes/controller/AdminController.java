@@ -1,13 +1,20 @@
 package com.nathan.secure_notes.controller;
 
 import com.nathan.secure_notes.dto.UserDTO;
+import com.nathan.secure_notes.dto.requests.AdminUserFilter;
+import com.nathan.secure_notes.dto.responses.AdminUserPageResponse;
+import com.nathan.secure_notes.exception.PasswordHashingRejectedException;
 import com.nathan.secure_notes.model.Role;
-import com.nathan.secure_notes.model.User;
+import com.nathan.secure_notes.security.VerifiedTokenCache;
+import com.nathan.secure_notes.service.NoteService;
 import com.nathan.secure_notes.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -18,10 +25,19 @@ import java.util.List;
 public class AdminController {
 
     private final UserService userService;
+    private final NoteService noteService;
+    private final VerifiedTokenCache verifiedTokenCache;
 
+    /**
+     * Filters are bound from role, locked, enabled, accountExpired, credentialsExpired and
+     * signUpMethod; sort is "username", "email", "createdAt" or "userId", optionally ",desc"
+     */
     @GetMapping("/getusers")
-    public ResponseEntity<List<User>> getAllUsers() {
-        return new ResponseEntity<>(userService.getAllUsers(),
+    public ResponseEntity<AdminUserPageResponse> getUsers(AdminUserFilter filter,
+                                                          @RequestParam(required = false) Integer page,
+                                                          @RequestParam(required = false) Integer size,
+                                                          @RequestParam(required = false) String sort) {
+        return new ResponseEntity<>(userService.getUsersPage(filter, page, size, sort),
                 HttpStatus.OK);
     }
 
@@ -76,9 +92,31 @@ public class AdminController {
         try {
             userService.updatePassword(userId, password);
             return ResponseEntity.ok("Password updated");
+        } catch (PasswordHashingRejectedException e) {
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
         }
     }
 
+    @GetMapping(value = "/notes/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportNotesForUser(@RequestParam String username) {
+        StreamingResponseBody body = out -> noteService.exportNotesForUser(username, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"notes.ndjson\"")
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    @PostMapping("/notes/search-index/rebuild")
+    public ResponseEntity<String> rebuildNoteSearchIndex() {
+        long indexed = noteService.rebuildSearchIndex();
+        return ResponseEntity.ok("Search index rebuilt with " + indexed + " notes");
+    }
+
+    @GetMapping("/token-cache-stats")
+    public ResponseEntity<VerifiedTokenCache.TokenCacheStats> getTokenCacheStats() {
+        return new ResponseEntity<>(verifiedTokenCache.stats(), HttpStatus.OK);
+    }
+
 }
\ No newline at end of file
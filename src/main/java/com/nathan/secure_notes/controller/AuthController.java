@@ -1,6 +1,7 @@
 package com.nathan.secure_notes.controller;
 
 import com.nathan.secure_notes.dto.requests.LoginRequest;
+import com.nathan.secure_notes.dto.requests.RefreshTokenRequest;
 import com.nathan.secure_notes.dto.requests.SignupRequest;
 import com.nathan.secure_notes.dto.responses.LoginResponse;
 import com.nathan.secure_notes.dto.responses.MessageResponse;
@@ -11,13 +12,21 @@ import com.nathan.secure_notes.model.User;
 import com.nathan.secure_notes.repository.RoleRepository;
 import com.nathan.secure_notes.repository.UserRepository;
 import com.nathan.secure_notes.security.JwtUtils;
+import com.nathan.secure_notes.security.LoginAttemptTracker;
+import com.nathan.secure_notes.security.TokenRevocationList;
+import com.nathan.secure_notes.service.RefreshTokenService;
 import com.nathan.secure_notes.service.UserService;
+import com.nathan.secure_notes.service.impl.SignupAvailabilityIndex;
 import com.nathan.secure_notes.service.impl.UserDetailsImpl;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
@@ -29,6 +38,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @RestController
@@ -41,6 +51,10 @@ public class AuthController {
     private final PasswordEncoder passwordEncoder;
     private final RoleRepository roleRepository;
     private final UserService userService;
+    private final LoginAttemptTracker loginAttemptTracker;
+    private final SignupAvailabilityIndex signupAvailabilityIndex;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationList tokenRevocationList;
 
     /**
      * Authenticates a user and generates a JWT token
@@ -56,22 +70,46 @@ public class AuthController {
      *
      * This method handles user authentication using the provided login credentials.
      * If the authentication is successful, it generates a JWT token for the user.
+     * Usernames and client IPs with too many recent failures are refused with 429 before the
+     * password is checked; see LoginAttemptTracker.
      *
      * @param loginRequest The LoginRequest object containing user credentials
+     * @param request      The HTTP request, used for the client IP
      * @return A ResponseEntity containing the LoginResponse with JWT token and user details
      */
     @PostMapping("/public/signin")
-    public ResponseEntity<?> authenticateUser(@RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<?> authenticateUser(@RequestBody LoginRequest loginRequest, HttpServletRequest request) {
+        String clientIp = request.getRemoteAddr();
+        long blockedForNanos = loginAttemptTracker.tryBegin(loginRequest.getUsername(), clientIp);
+        if (blockedForNanos > 0) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("message", "Too many failed sign-in attempts, try again later");
+            map.put("status", false);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(blockedForNanos))))
+                    .body(map);
+        }
+
         Authentication authentication;
         try {
             authentication = authenticationManager
                     .authenticate(new UsernamePasswordAuthenticationToken(loginRequest.getUsername(), loginRequest.getPassword()));
         } catch (AuthenticationException exception) {
+            if (!(exception instanceof BadCredentialsException)) {
+                loginAttemptTracker.release(loginRequest.getUsername(), clientIp);
+            } else if (loginAttemptTracker.recordFailure(loginRequest.getUsername(), clientIp)) {
+                userRepository.findByUsername(loginRequest.getUsername())
+                        .ifPresent(user -> userService.updateAccountLockStatus(user.getUserId(), true));
+            }
             Map<String, Object> map = new HashMap<>();
             map.put("message", "Bad credentials");
             map.put("status", false);
             return new ResponseEntity<Object>(map, HttpStatus.NOT_FOUND);
+        } catch (RuntimeException exception) {
+            loginAttemptTracker.release(loginRequest.getUsername(), clientIp);
+            throw exception;
         }
+        loginAttemptTracker.recordSuccess(loginRequest.getUsername(), clientIp);
 
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
@@ -83,11 +121,55 @@ public class AuthController {
                 .map(item -> item.getAuthority())
                 .collect(Collectors.toList());
 
-        LoginResponse response = new LoginResponse(userDetails.getId(), userDetails.getUsername(), roles, jwtToken);
+        String refreshToken = refreshTokenService.issue(userDetails);
+
+        LoginResponse response = new LoginResponse(userDetails.getId(), userDetails.getUsername(), roles, jwtToken, refreshToken);
 
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Exchanges a refresh token for a new short-lived access token
+     *
+     * The presented refresh token is consumed and a new one is returned in its place; presenting
+     * it again revokes every token descended from the same sign-in. No password is checked, so
+     * keeping access tokens short does not move load onto signin.
+     *
+     * @param refreshTokenRequest The refresh token returned by signin or the previous refresh
+     * @return A LoginResponse with the new access token and refresh token
+     */
+    @PostMapping("/public/refresh")
+    public ResponseEntity<?> refreshToken(@Valid @RequestBody RefreshTokenRequest refreshTokenRequest) {
+        RefreshTokenService.RefreshedTokens tokens = refreshTokenService.refresh(refreshTokenRequest.getRefreshToken());
+        UserDetailsImpl userDetails = tokens.user();
+        List<String> roles = userDetails.getAuthorities().stream()
+                .map(item -> item.getAuthority())
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(new LoginResponse(userDetails.getId(), userDetails.getUsername(), roles,
+                tokens.accessToken(), tokens.refreshToken()));
+    }
+
+    /**
+     * Revokes a refresh token and every token rotated from the same sign-in
+     *
+     * The access token sent in the Authorization header, if any, is revoked as well through
+     * the TokenRevocationList.
+     *
+     * @param refreshTokenRequest The refresh token to revoke
+     * @param request             The HTTP request, for the access token
+     * @return A MessageResponse confirming the sign-out
+     */
+    @PostMapping("/public/signout")
+    public ResponseEntity<?> signOut(@Valid @RequestBody RefreshTokenRequest refreshTokenRequest,
+                                     HttpServletRequest request) {
+        refreshTokenService.revoke(refreshTokenRequest.getRefreshToken());
+        String jwt = jwtUtils.getJwtFromHeader(request);
+        if (jwt != null) {
+            jwtUtils.verifyJwtToken(jwt).ifPresent(tokenRevocationList::revoke);
+        }
+        return ResponseEntity.ok(new MessageResponse("Signed out successfully"));
+    }
+
     /**
      * Registers a new user in the application
      *
@@ -100,11 +182,13 @@ public class AuthController {
      */
     @PostMapping("/public/signup")
     public ResponseEntity<?> registerUser(@Valid @RequestBody SignupRequest signupRequest) {
-        if(userRepository.existsByUserName(signupRequest.getUsername())){
+        SignupAvailabilityIndex.Availability availability =
+                signupAvailabilityIndex.check(signupRequest.getUsername(), signupRequest.getEmail());
+        if(!availability.usernameAvailable()){
             return ResponseEntity.badRequest().body(new MessageResponse("Error: username is already taken"));
         }
 
-        if(userRepository.existsByEmail(signupRequest.getEmail())){
+        if(!availability.emailAvailable()){
             return ResponseEntity.badRequest().body(new MessageResponse("Error: Email is already taken"));
         }
 
@@ -150,11 +234,37 @@ public class AuthController {
             user.setTwoFactorEnabled(false);
             user.setSignUpMethod("email");
         }
-        user.setRole((Role) roles);
-        userRepository.save(user);
+        // A user holds a single role
+        user.setRole(roles.iterator().next());
+        try {
+            userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // Registered concurrently or on another instance since the availability check
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: username or email is already taken"));
+        }
+        signupAvailabilityIndex.add(user.getUserName(), user.getEmail());
         return ResponseEntity.ok(new MessageResponse("User registered successfully"));
     }
 
+    /**
+     * Checks whether a username and/or email can still be registered
+     *
+     * Meant to be called as the signup form is filled in; most checks are answered from
+     * memory by SignupAvailabilityIndex without a database query.
+     *
+     * @param username The username to check, optional
+     * @param email    The email to check, optional
+     * @return Whether each given value is available; values that were not given are null
+     */
+    @GetMapping("/public/availability")
+    public ResponseEntity<?> checkAvailability(@RequestParam(required = false) String username,
+                                               @RequestParam(required = false) String email) {
+        if (username == null && email == null) {
+            return ResponseEntity.badRequest().body(new MessageResponse("Error: username or email is required"));
+        }
+        return ResponseEntity.ok(signupAvailabilityIndex.check(username, email));
+    }
+
     @GetMapping("/user")
     public ResponseEntity<?> getUserDetails(@AuthenticationPrincipal UserDetails userDetails) {
         User user = userService.findByUsername(userDetails.getUsername());
@@ -1,13 +1,22 @@
 package com.nathan.secure_notes.controller;
 
+import com.nathan.secure_notes.dto.requests.BulkNoteRequest;
+import com.nathan.secure_notes.dto.responses.BulkNoteResponse;
+import com.nathan.secure_notes.dto.responses.NotePageResponse;
+import com.nathan.secure_notes.dto.responses.NoteSearchResponse;
+import com.nathan.secure_notes.dto.responses.NoteSummary;
 import com.nathan.secure_notes.model.Notes;
 import com.nathan.secure_notes.service.NoteService;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -32,6 +41,52 @@ public class NotesController {
         return new ResponseEntity<>(notes, HttpStatus.OK);
     }
 
+    @GetMapping("/page")
+    public ResponseEntity<NotePageResponse<Notes>> getNotesPageForUser(@RequestParam(required = false) Long cursor,
+                                                                       @RequestParam(required = false) Integer size,
+                                                                       @AuthenticationPrincipal UserDetails userDetails) {
+        String username = userDetails.getUsername();
+        NotePageResponse<Notes> page = noteService.getNotesPageForUser(username, cursor, size);
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+
+    @GetMapping("/summaries")
+    public ResponseEntity<NotePageResponse<NoteSummary>> getNoteSummariesForUser(@RequestParam(required = false) Long cursor,
+                                                                                 @RequestParam(required = false) Integer size,
+                                                                                 @AuthenticationPrincipal UserDetails userDetails) {
+        String username = userDetails.getUsername();
+        NotePageResponse<NoteSummary> page = noteService.getNoteSummariesForUser(username, cursor, size);
+        return new ResponseEntity<>(page, HttpStatus.OK);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<NoteSearchResponse> searchNotesForUser(@RequestParam String q,
+                                                                 @RequestParam(required = false) Integer page,
+                                                                 @RequestParam(required = false) Integer size,
+                                                                 @AuthenticationPrincipal UserDetails userDetails) {
+        String username = userDetails.getUsername();
+        NoteSearchResponse results = noteService.searchNotesForUser(username, q, page, size);
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
+    @GetMapping("/{noteId}")
+    public ResponseEntity<Notes> getNoteForUser(@PathVariable Long noteId,
+                                                @AuthenticationPrincipal UserDetails userDetails) {
+        String username = userDetails.getUsername();
+        Notes note = noteService.getNoteForUser(noteId, username);
+        return new ResponseEntity<>(note, HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportNotesForUser(@AuthenticationPrincipal UserDetails userDetails) {
+        String username = userDetails.getUsername();
+        StreamingResponseBody body = out -> noteService.exportNotesForUser(username, out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"notes.ndjson\"")
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
     @PutMapping("/update/{noteId}")
     public ResponseEntity<Notes> updateNoteForUser(@PathVariable Long noteId,
                                                    @RequestBody Notes note,
@@ -48,4 +103,12 @@ public class NotesController {
         noteService.deleteNoteForUser(noteId, username);
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
+
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkNoteResponse> applyBulkForUser(@Valid @RequestBody BulkNoteRequest request,
+                                                             @AuthenticationPrincipal UserDetails userDetails) {
+        String username = userDetails.getUsername();
+        BulkNoteResponse response = noteService.applyBulkForUser(username, request.getOperations());
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
 }
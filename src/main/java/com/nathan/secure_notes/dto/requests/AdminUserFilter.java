@@ -0,0 +1,24 @@
+package com.nathan.secure_notes.dto.requests;
+
+import com.nathan.secure_notes.model.AppRole;
+
+/**
+ * Optional filters for the admin user listing; a null field does not filter
+ *
+ * Bound from the query parameters of GET /api/admin/getusers. Also the key of the
+ * AdminUserCountCache, so two listings with the same filters share one count.
+ *
+ * @param role               Only users with this role
+ * @param locked             Only locked (true) or unlocked (false) accounts
+ * @param enabled            Only enabled (true) or disabled (false) accounts
+ * @param accountExpired     Only expired (true) or unexpired (false) accounts
+ * @param credentialsExpired Only users whose credentials have (true) or have not (false) expired
+ * @param signUpMethod       Only users who signed up this way, e.g. "email"
+ */
+public record AdminUserFilter(AppRole role,
+                              Boolean locked,
+                              Boolean enabled,
+                              Boolean accountExpired,
+                              Boolean credentialsExpired,
+                              String signUpMethod) {
+}
@@ -0,0 +1,35 @@
+package com.nathan.secure_notes.dto.requests;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * A batch of note changes applied in one transaction by POST /api/notes/bulk
+ */
+@Data
+public class BulkNoteRequest {
+    @NotEmpty
+    @Valid
+    private List<Operation> operations;
+
+    public enum OperationType {
+        CREATE, UPDATE, DELETE
+    }
+
+    /**
+     * A single change; noteId is required for UPDATE and DELETE, content for CREATE and UPDATE
+     */
+    @Data
+    public static class Operation {
+        @NotNull
+        private OperationType type;
+
+        private Long noteId;
+
+        private String content;
+    }
+}
@@ -0,0 +1,13 @@
+package com.nathan.secure_notes.dto.requests;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class RefreshTokenRequest {
+    @NotBlank
+    private String refreshToken;
+
+}
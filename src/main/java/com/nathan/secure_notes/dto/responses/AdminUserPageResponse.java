@@ -1,17 +1,22 @@
 package com.nathan.secure_notes.dto.responses;
 
-import com.nathan.sbecommerce.dto.request.ProductRequest;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
 
+/**
+ * One page of the admin user listing
+ *
+ * totalElements comes from the AdminUserCountCache and may lag behind signups and
+ * status changes by up to spring.app.adminUserCountCacheSeconds.
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class ProductResponse {
-    private List<ProductRequest> productRequests;
+public class AdminUserPageResponse {
+    private List<AdminUserSummary> users;
     private Integer pageNumber;
     private Integer pageSize;
     private Long totalElements;
@@ -0,0 +1,34 @@
+package com.nathan.secure_notes.dto.responses;
+
+import com.nathan.secure_notes.model.AppRole;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Row of the admin user listing
+ *
+ * Built directly by UserRepository.findAdminUserSummaries, so no User entity is loaded
+ * and the password hash and 2FA secret never leave the database.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdminUserSummary {
+    private Long userId;
+    private String userName;
+    private String email;
+    private AppRole role;
+    private boolean accountNonLocked;
+    private boolean accountNonExpired;
+    private boolean credentialsNonExpired;
+    private boolean enabled;
+    private LocalDate credentialsExpiryDate;
+    private LocalDate accountExpiryDate;
+    private boolean twoFactorEnabled;
+    private String signUpMethod;
+    private LocalDateTime createdAt;
+}
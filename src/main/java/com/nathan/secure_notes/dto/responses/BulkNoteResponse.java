@@ -0,0 +1,30 @@
+package com.nathan.secure_notes.dto.responses;
+
+import com.nathan.secure_notes.dto.requests.BulkNoteRequest;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of each operation of a BulkNoteRequest, in request order
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkNoteResponse {
+    private List<Result> results;
+    private Integer succeeded;
+    private Integer failed;
+
+    /**
+     * @param index   Position of the operation in the request
+     * @param type    The operation type
+     * @param noteId  The affected note; for a CREATE, the id of the new note
+     * @param success Whether the operation was applied
+     * @param message Why the operation was rejected, null on success
+     */
+    public record Result(int index, BulkNoteRequest.OperationType type, Long noteId, boolean success, String message) {
+    }
+}
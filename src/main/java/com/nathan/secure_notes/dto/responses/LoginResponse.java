@@ -10,15 +10,17 @@ import java.util.List;
 public class LoginResponse {
     private Long id;
     private String jwtToken;
+    private String refreshToken;
 
     private String username;
     private List<String> roles;
 
-    public LoginResponse(Long id, String username, List<String> roles, String jwtToken) {
+    public LoginResponse(Long id, String username, List<String> roles, String jwtToken, String refreshToken) {
         this.id = id;
         this.username = username;
         this.roles = roles;
         this.jwtToken = jwtToken;
+        this.refreshToken = refreshToken;
     }
 
 }
@@ -0,0 +1,23 @@
+package com.nathan.secure_notes.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a user's notes or note summaries, ordered by note id
+ *
+ * nextCursor is the id of the last note on the page; pass it back as the cursor
+ * to fetch the following page. It is null when lastPage is true.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotePageResponse<T> {
+    private List<T> notes;
+    private Integer pageSize;
+    private Long nextCursor;
+    private Boolean lastPage;
+}
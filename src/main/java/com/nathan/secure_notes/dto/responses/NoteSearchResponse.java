@@ -0,0 +1,28 @@
+package com.nathan.secure_notes.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of search results, best match first
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteSearchResponse {
+    private List<Hit> hits;
+    private Integer pageNumber;
+    private Integer pageSize;
+    private Long totalHits;
+
+    /**
+     * @param noteId  The matching note, fetched in full through GET /api/notes/{noteId}
+     * @param score   Relevance score; only meaningful relative to the other hits
+     * @param snippet Best matching passage of the content with matched terms wrapped in &lt;b&gt;
+     */
+    public record Hit(Long noteId, float score, String snippet) {
+    }
+}
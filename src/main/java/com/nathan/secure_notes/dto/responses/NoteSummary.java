@@ -0,0 +1,30 @@
+package com.nathan.secure_notes.dto.responses;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Listing view of a note without its full content
+ *
+ * Built directly by NoteRepository.findSummaries, so only the first characters of the
+ * content leave the database; the full note is fetched through GET /api/notes/{noteId}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteSummary {
+
+    /**
+     * Upper bound of spring.app.notePreviewLength, fixed by the query's cast
+     */
+    public static final int MAX_PREVIEW_LENGTH = 1000;
+
+    private Long id;
+    private String ownerUserName;
+    private String preview;
+    private Integer contentLength;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,11 @@
+package com.nathan.secure_notes.exception;
+
+/**
+ * Thrown when a refresh token is unknown, expired, revoked or reused
+ * Mapped to 401 Unauthorized so the client signs in again
+ */
+public class InvalidRefreshTokenException extends RuntimeException {
+    public InvalidRefreshTokenException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.nathan.secure_notes.exception;
+
+/**
+ * Thrown when the password hashing pool is saturated and cannot accept more work
+ * Mapped to 503 Service Unavailable so clients back off instead of piling up
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+    public PasswordHashingRejectedException(String message) {
+        super(message);
+    }
+}
@@ -1,26 +1,76 @@
 package com.nathan.secure_notes.model;
 
 import jakarta.persistence.*;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.nathan.secure_notes.util.HashUtils;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = @Index(name = "idx_notes_owner_id", columnList = "owner_user_name, id"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_notes_owner_content_hash",
+                columnNames = {"owner_user_name", "content_hash"}))
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class Notes {
+    /**
+     * Ids handed out per round trip to notes_seq
+     * Sequence ids (unlike IDENTITY) let Hibernate batch note inserts
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "notes_seq")
+    @SequenceGenerator(name = "notes_seq", sequenceName = "notes_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Lob
     private String content;
 
+    @Column(name = "owner_user_name")
     private String ownerUserName;
 
+    /**
+     * Length of content in characters, kept in its own column so listings
+     * can report it without reading the @Lob
+     */
+    private Integer contentLength;
+
+    /**
+     * SHA-256 of content, unique per owner
+     * Lets duplicate checks use an index instead of comparing the @Lob. Notes that already
+     * duplicated another note of their owner when the column was backfilled hold "dup:" + id
+     * instead, until their content is next changed.
+     */
+    @JsonIgnore
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+
     public Notes(String content, String ownerUserName) {
         this.content = content;
         this.ownerUserName = ownerUserName;
     }
+
+    @PrePersist
+    @PreUpdate
+    void updateContentMetadata() {
+        this.contentLength = content == null ? 0 : content.length();
+        this.contentHash = hashContent(content);
+    }
+
+    public static String hashContent(String content) {
+        return HashUtils.sha256Hex(content == null ? "" : content);
+    }
 }
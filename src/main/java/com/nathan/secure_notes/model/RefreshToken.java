@@ -0,0 +1,66 @@
+package com.nathan.secure_notes.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+
+/**
+ * One opaque refresh token, stored only as the SHA-256 of its value
+ *
+ * Every refresh consumes the presented token and issues a new one in the same family. A token
+ * presented again after it was used means it was copied, and the whole family is revoked.
+ */
+@Entity
+@Table(name = "refresh_tokens",
+        indexes = {
+                @Index(name = "idx_refresh_tokens_family", columnList = "family_id"),
+                @Index(name = "idx_refresh_tokens_user_name", columnList = "user_name"),
+                @Index(name = "idx_refresh_tokens_expires_at", columnList = "expires_at")},
+        uniqueConstraints = @UniqueConstraint(name = "uk_refresh_tokens_hash", columnNames = "token_hash"))
+@Data
+@NoArgsConstructor
+public class RefreshToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "token_hash", length = 64, nullable = false)
+    private String tokenHash;
+
+    @Column(name = "family_id", length = 36, nullable = false)
+    private String familyId;
+
+    @Column(name = "user_name", nullable = false)
+    private String userName;
+
+    /**
+     * The user's security version when the family was started; a later change to the account
+     * (lock, role, password...) ends the family
+     */
+    private int securityVersion;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    /**
+     * When the token was exchanged for its successor, null while it is still usable
+     */
+    private Instant usedAt;
+
+    private boolean revoked;
+
+    @CreationTimestamp
+    @Column(updatable = false)
+    private Instant createdAt;
+
+    public RefreshToken(String tokenHash, String familyId, String userName, int securityVersion, Instant expiresAt) {
+        this.tokenHash = tokenHash;
+        this.familyId = familyId;
+        this.userName = userName;
+        this.securityVersion = securityVersion;
+        this.expiresAt = expiresAt;
+    }
+}
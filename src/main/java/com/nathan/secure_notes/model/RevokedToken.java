@@ -0,0 +1,56 @@
+package com.nathan.secure_notes.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.Instant;
+
+/**
+ * A revoked access token, or every access token of a user issued up to notBefore
+ *
+ * Exactly one of tokenId and notBefore is set. Rows are only needed until expiresAt, after
+ * which every token they could match has expired on its own.
+ */
+@Entity
+@Table(name = "revoked_tokens",
+        indexes = {
+                @Index(name = "idx_revoked_tokens_created_at", columnList = "created_at"),
+                @Index(name = "idx_revoked_tokens_expires_at", columnList = "expires_at")})
+@Data
+@NoArgsConstructor
+public class RevokedToken {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * The jti of the revoked token
+     */
+    @Column(name = "token_id", length = 36)
+    private String tokenId;
+
+    @Column(name = "user_name", nullable = false)
+    private String userName;
+
+    /**
+     * Tokens of userName issued at or before this instant are revoked
+     */
+    @Column(name = "not_before")
+    private Instant notBefore;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private Instant createdAt;
+
+    public RevokedToken(String tokenId, String userName, Instant notBefore, Instant expiresAt) {
+        this.tokenId = tokenId;
+        this.userName = userName;
+        this.notBefore = notBefore;
+        this.expiresAt = expiresAt;
+    }
+}
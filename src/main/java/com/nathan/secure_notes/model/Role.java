@@ -23,14 +23,14 @@ public class Role {
 
     @Enumerated(EnumType.STRING)
     @Column(name = "role_name")
-    private AppRole name;
+    private AppRole roleName;
 
     @OneToMany(mappedBy = "role", fetch = FetchType.LAZY, cascade = CascadeType.ALL)
     @JsonBackReference
     @ToString.Exclude
     private Set<User> users = new HashSet<>();
 
-    public Role(AppRole name) {
-        this.name = name;
+    public Role(AppRole roleName) {
+        this.roleName = roleName;
     }
 }
@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
 @Table(name = "users",
         uniqueConstraints = {
                 @UniqueConstraint(columnNames = "username"),
-                @UniqueConstraint(columnNames = "email")})
+                @UniqueConstraint(columnNames = "email")},
+        indexes = @Index(name = "idx_users_updated_at", columnList = "updated_at"))
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -40,7 +41,6 @@ public class User {
 
     @Column(name = "password")
     @NotEmpty(message = "Password cannot be empty")
-    @Size(min = 6, max = 20, message = "Password must be between 6 and 20 characters")
     private String password;
 
     private boolean enabled = true;
@@ -56,6 +56,12 @@ public class User {
 
     private String signUpMethod;
 
+    /**
+     * Incremented whenever the account's role, lock, enabled, expiry or password state changes,
+     * so tokens carrying an older version are no longer trusted on their own
+     */
+    private int securityVersion;
+
     @ManyToOne(fetch = FetchType.EAGER, cascade = CascadeType.ALL)
     @JoinColumn(name = "role_id", referencedColumnName = "role_id")
     @JsonBackReference
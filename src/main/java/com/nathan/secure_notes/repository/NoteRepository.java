@@ -1,16 +1,99 @@
 package com.nathan.secure_notes.repository;
 
+import com.nathan.secure_notes.dto.responses.NoteSummary;
 import com.nathan.secure_notes.model.Notes;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface NoteRepository extends JpaRepository<Notes, Long> {
     List<Notes> findByOwnerUserName(String ownerUserName);
 
+    /**
+     * Keyset page of a user's notes: the next notes after the given id, in id order
+     * Served by the (owner_user_name, id) index, so the cost does not grow with the page's position
+     */
+    List<Notes> findByOwnerUserNameAndIdGreaterThanOrderByIdAsc(String ownerUserName, Long id, Limit limit);
+
+    /**
+     * Keyset page of a user's note summaries
+     * Only the first previewLength characters of the content are selected, never the whole @Lob.
+     * Hibernate will not apply substring() to a CLOB-mapped attribute, so the content is cast first;
+     * the cast has a length because an unsized char cast is a single character on H2.
+     */
+    @Query("select new com.nathan.secure_notes.dto.responses.NoteSummary(" +
+            "n.id, n.ownerUserName, substring(cast(n.content as String(" + NoteSummary.MAX_PREVIEW_LENGTH + ")), 1, :previewLength), n.contentLength, n.updatedAt) " +
+            "from Notes n where n.ownerUserName = :ownerUserName and n.id > :id order by n.id")
+    List<NoteSummary> findSummaries(@Param("ownerUserName") String ownerUserName,
+                                    @Param("id") Long id,
+                                    @Param("previewLength") int previewLength,
+                                    Limit limit);
+
+    Optional<Notes> findByIdAndOwnerUserName(Long id, String ownerUserName);
+
+    /**
+     * Forward-only stream over all of a user's notes, in id order
+     * Rows are fetched QueryFetchSizes.STREAMING at a time instead of buffering the whole result set.
+     * Must be consumed inside a transaction and closed.
+     */
+    @Query("select n from Notes n where n.ownerUserName = :ownerUserName order by n.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = QueryFetchSizes.STREAMING),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Notes> streamByOwnerUserName(@Param("ownerUserName") String ownerUserName);
+
+    /**
+     * Forward-only stream over every note, used to rebuild the search index
+     */
+    @Query("select n from Notes n order by n.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = QueryFetchSizes.STREAMING),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<Notes> streamAll();
+
     Notes findByContent(String content);
 
     Notes findByContentAndOwnerUserName(String content, String username);
+
+    /**
+     * Duplicate check served by the (owner_user_name, content_hash) unique index
+     */
+    boolean existsByOwnerUserNameAndContentHash(String ownerUserName, String contentHash);
+
+    /**
+     * Which of the given hashes the user already has a note for, in one index lookup
+     */
+    @Query("select n.contentHash from Notes n where n.ownerUserName = :ownerUserName and n.contentHash in :contentHashes")
+    List<String> findExistingContentHashes(@Param("ownerUserName") String ownerUserName,
+                                           @Param("contentHashes") Collection<String> contentHashes);
+
+    List<Notes> findByOwnerUserNameAndIdIn(String ownerUserName, Collection<Long> ids);
+
+    /**
+     * Batch of notes written before content_hash existed, for NoteContentHashBackfill
+     */
+    List<Notes> findByContentHashIsNullAndIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Sets the hash columns directly, bypassing Notes' callbacks that would recompute the real hash,
+     * for NoteContentHashBackfill to mark notes that duplicate another one
+     */
+    @Modifying
+    @Query("update Notes n set n.contentHash = :contentHash, n.contentLength = :contentLength where n.id = :id")
+    int markContentHash(@Param("id") Long id, @Param("contentHash") String contentHash,
+                        @Param("contentLength") Integer contentLength);
 }
@@ -0,0 +1,18 @@
+package com.nathan.secure_notes.repository;
+
+/**
+ * Fetch sizes for repository query hints
+ */
+public final class QueryFetchSizes {
+
+    /**
+     * Rows per round trip for the forward-only streaming queries
+     * A positive size is accepted by every driver: MySQL Connector/J streams through a server-side
+     * cursor because the connection sets useCursorFetch=true, and H2 reads the result in batches.
+     * Connector/J's Integer.MIN_VALUE row-by-row mode is not used since H2 rejects negative sizes.
+     */
+    public static final String STREAMING = "500";
+
+    private QueryFetchSizes() {
+    }
+}
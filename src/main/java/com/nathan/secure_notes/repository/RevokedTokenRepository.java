@@ -0,0 +1,26 @@
+package com.nathan.secure_notes.repository;
+
+import com.nathan.secure_notes.model.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+    /**
+     * Revocations recorded since an instant that have not expired yet, by any instance
+     */
+    @Query("select t from RevokedToken t where t.createdAt > :since and t.expiresAt > :now")
+    List<RevokedToken> findRecent(@Param("since") Instant since, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RevokedToken t where t.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -1,21 +1,113 @@
 package com.nathan.secure_notes.repository;
 
+import com.nathan.secure_notes.dto.responses.AdminUserSummary;
+import com.nathan.secure_notes.model.AppRole;
 import com.nathan.secure_notes.model.User;
+import jakarta.persistence.QueryHint;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
-    Optional<User> findByUsername(String username);
+    @Query("select u from User u where u.userName = :username")
+    Optional<User> findByUsername(@Param("username") String username);
 
     boolean existsByUserName(@NotBlank @Size(min =  3, max = 50) String username);
 
     boolean existsByEmail(@NotBlank @Email @Size(max = 50) String email);
 
     Optional<User> findByEmail(String email);
+
+    /**
+     * Username and email of every user, used to warm the signup availability filter
+     * Streams QueryFetchSizes.STREAMING rows at a time; must be consumed inside a transaction and closed.
+     */
+    @Query("select u.userName as userName, u.email as email from User u")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = QueryFetchSizes.STREAMING),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<UserIdentity> streamIdentities();
+
+    /**
+     * Username and email of users created or changed at or after the given time, used to keep the
+     * signup availability filter in step with other instances; served by idx_users_updated_at
+     */
+    @Query("select u.userName as userName, u.email as email from User u where u.updatedAt >= :since")
+    List<UserIdentity> findIdentitiesUpdatedSince(@Param("since") LocalDateTime since);
+
+    /**
+     * The users holding either the username or the email, in one query
+     */
+    @Query("select u.userName as userName, u.email as email from User u " +
+            "where u.userName = :username or u.email = :email")
+    List<UserIdentity> findIdentitiesByUserNameOrEmail(@Param("username") String username,
+                                                       @Param("email") String email);
+
+    /**
+     * Replaces a password hash only if it has not changed since it was read,
+     * so a rehash on login can never overwrite a concurrent password change
+     *
+     * @return The number of rows updated, 0 if the hash had already changed
+     */
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :newPassword where u.userName = :username and u.password = :oldPassword")
+    int updatePasswordIfUnchanged(@Param("username") String username,
+                                  @Param("oldPassword") String oldPassword,
+                                  @Param("newPassword") String newPassword);
+
+    String ADMIN_USER_FILTER = "where (:role is null or r.roleName = :role) " +
+            "and (:locked is null or u.accountNonLocked <> :locked) " +
+            "and (:enabled is null or u.enabled = :enabled) " +
+            "and (:accountExpired is null or u.accountNonExpired <> :accountExpired) " +
+            "and (:credentialsExpired is null or u.credentialsNonExpired <> :credentialsExpired) " +
+            "and (:signUpMethod is null or u.signUpMethod = :signUpMethod)";
+
+    /**
+     * One page of the admin user listing as DTOs, joined to the role in the same query
+     * Null parameters do not filter; locked and the expiry flags are the inverse of the
+     * stored *NonLocked / *NonExpired columns
+     */
+    @Query("select new com.nathan.secure_notes.dto.responses.AdminUserSummary(" +
+            "u.userId, u.userName, u.email, r.roleName, u.accountNonLocked, u.accountNonExpired, " +
+            "u.credentialsNonExpired, u.enabled, u.credentialsExpiryDate, u.accountExpiryDate, " +
+            "u.isTwoFactorEnabled, u.signUpMethod, u.createdAt) " +
+            "from User u left join u.role r " + ADMIN_USER_FILTER)
+    List<AdminUserSummary> findAdminUserSummaries(@Param("role") AppRole role,
+                                                  @Param("locked") Boolean locked,
+                                                  @Param("enabled") Boolean enabled,
+                                                  @Param("accountExpired") Boolean accountExpired,
+                                                  @Param("credentialsExpired") Boolean credentialsExpired,
+                                                  @Param("signUpMethod") String signUpMethod,
+                                                  Pageable pageable);
+
+    @Query("select count(u) from User u left join u.role r " + ADMIN_USER_FILTER)
+    long countAdminUsers(@Param("role") AppRole role,
+                         @Param("locked") Boolean locked,
+                         @Param("enabled") Boolean enabled,
+                         @Param("accountExpired") Boolean accountExpired,
+                         @Param("credentialsExpired") Boolean credentialsExpired,
+                         @Param("signUpMethod") String signUpMethod);
+
+    interface UserIdentity {
+        String getUserName();
+
+        String getEmail();
+    }
 }
@@ -0,0 +1,316 @@
+package com.nathan.secure_notes.search;
+
+import com.nathan.secure_notes.dto.responses.NoteSearchResponse;
+import com.nathan.secure_notes.model.Notes;
+import com.nathan.secure_notes.repository.NoteRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.uhighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Full-text index of note content, kept in a Lucene index on local disk
+ *
+ * NoteServiceImpl reports every create, update and delete here. Those calls only enqueue the
+ * change; a single background thread drains the queue in batches of up to
+ * spring.app.searchIndexBatchSize, applies them and commits, so indexing adds nothing to
+ * write latency. Searches see changes once their batch has been applied.
+ *
+ * The queue holds at most spring.app.searchIndexQueueCapacity changes. A change that does not
+ * fit is dropped and the indexer rebuilds the index from the database instead, which covers it.
+ * A batch or rebuild that fails part way is recovered the same way, before any further batch
+ * is committed.
+ *
+ * Every document carries its owner and searches are always filtered by it, so a user only
+ * ever matches their own notes. If the index is lost or falls out of step with the database
+ * it can be rebuilt from the notes table with rebuild().
+ */
+@Component
+public class NoteSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteSearchIndex.class);
+
+    static final String ID_FIELD = "id";
+    static final String OWNER_FIELD = "owner";
+    static final String CONTENT_FIELD = "content";
+
+    private static final long REBUILD_RETRY_SECONDS = 10;
+
+    private final NoteRepository noteRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Path indexDir;
+    private final int batchSize;
+
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final BlockingQueue<IndexOperation> pending;
+    private final AtomicBoolean rebuildNeeded = new AtomicBoolean();
+
+    /**
+     * Held by a rebuild and by the indexer while it applies a batch, so a batch is never
+     * committed into a half-built index.
+     * A lock rather than synchronized: a rebuild reads the whole notes table, and blocking
+     * on JDBC inside a synchronized block would pin a virtual thread to its carrier
+     */
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private Directory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    private Thread indexer;
+    private volatile boolean running;
+
+    public NoteSearchIndex(NoteRepository noteRepository,
+                           EntityManager entityManager,
+                           TransactionTemplate transactionTemplate,
+                           @Value("${spring.app.searchIndexDir:data/notes-index}") String indexDir,
+                           @Value("${spring.app.searchIndexBatchSize:500}") int batchSize,
+                           @Value("${spring.app.searchIndexQueueCapacity:100000}") int queueCapacity) {
+        this.noteRepository = noteRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = transactionTemplate;
+        this.indexDir = Path.of(indexDir);
+        this.batchSize = batchSize;
+        this.pending = new LinkedBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        directory = FSDirectory.open(indexDir);
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        searcherManager = new SearcherManager(writer, null);
+        running = true;
+        indexer = Thread.ofPlatform().name("note-search-indexer").daemon().start(this::drainPending);
+    }
+
+    @PreDestroy
+    void close() throws IOException, InterruptedException {
+        running = false;
+        indexer.join();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    /**
+     * Queues a created or updated note for indexing
+     */
+    public void index(Notes note) {
+        enqueue(new IndexOperation(note.getId(), note.getOwnerUserName(), note.getContent(), false));
+    }
+
+    /**
+     * Queues a deleted note for removal from the index
+     */
+    public void remove(Long noteId) {
+        enqueue(new IndexOperation(noteId, null, null, true));
+    }
+
+    private void enqueue(IndexOperation operation) {
+        if (!pending.offer(operation) && rebuildNeeded.compareAndSet(false, true)) {
+            logger.warn("Note index queue is full, the index will be rebuilt from the database");
+        }
+    }
+
+    /**
+     * Ranked search over one user's notes
+     *
+     * @param owner     The user whose notes are searched
+     * @param queryText Search terms; supports "phrases", +required, -excluded and prefix*
+     * @param page      Zero-based page number
+     * @param size      Hits per page
+     * @return The requested page of hits with a highlighted snippet for each
+     * @throws IllegalArgumentException if the hits up to the end of the page do not fit an int;
+     *                                  callers cap the depth well below that
+     */
+    public NoteSearchResponse search(String owner, String queryText, int page, int size) throws IOException {
+        long depth = ((long) page + 1) * size;
+        if (depth > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Search page " + page + " of size " + size + " is too deep");
+        }
+        Query query = new BooleanQuery.Builder()
+                .add(new TermQuery(new Term(OWNER_FIELD, owner)), BooleanClause.Occur.FILTER)
+                .add(new SimpleQueryParser(analyzer, CONTENT_FIELD).parse(queryText), BooleanClause.Occur.MUST)
+                .build();
+
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs top = searcher.search(query, (int) depth);
+            ScoreDoc[] pageDocs = Arrays.copyOfRange(top.scoreDocs,
+                    (int) Math.min(depth - size, top.scoreDocs.length), top.scoreDocs.length);
+            // Escaped so note content cannot inject markup into the snippet
+            String[] snippets = UnifiedHighlighter.builder(searcher, analyzer)
+                    .withFormatter(new DefaultPassageFormatter("<b>", "</b>", "... ", true))
+                    .build()
+                    .highlight(CONTENT_FIELD, query, new TopDocs(top.totalHits, pageDocs));
+
+            StoredFields storedFields = searcher.storedFields();
+            List<NoteSearchResponse.Hit> hits = new ArrayList<>(pageDocs.length);
+            for (int i = 0; i < pageDocs.length; i++) {
+                Long noteId = Long.valueOf(storedFields.document(pageDocs[i].doc).get(ID_FIELD));
+                hits.add(new NoteSearchResponse.Hit(noteId, pageDocs[i].score, snippets[i]));
+            }
+            return new NoteSearchResponse(hits, page, size, top.totalHits.value);
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * Replaces the whole index with the notes currently in the database
+     * The indexer waits while the rebuild runs. Changes queued meanwhile are applied once it has
+     * committed, each replacing or deleting the rebuilt document with the same note id.
+     *
+     * @return The number of notes indexed
+     */
+    public long rebuild() throws IOException {
+        rebuildLock.lock();
+        try {
+            rebuildNeeded.set(false);
+            return rebuildIndex();
+        } catch (IOException | RuntimeException e) {
+            rebuildNeeded.set(true);
+            throw e;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private long rebuildIndex() throws IOException {
+        writer.deleteAll();
+        Long indexed = transactionTemplate.execute(status -> {
+            long count = 0;
+            try (Stream<Notes> notes = noteRepository.streamAll()) {
+                Iterator<Notes> iterator = notes.iterator();
+                while (iterator.hasNext()) {
+                    Notes note = iterator.next();
+                    writer.updateDocument(new Term(ID_FIELD, String.valueOf(note.getId())),
+                            toDocument(note.getId(), note.getOwnerUserName(), note.getContent()));
+                    entityManager.detach(note);
+                    count++;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return count;
+        });
+        writer.commit();
+        searcherManager.maybeRefresh();
+        logger.info("Rebuilt note search index with {} notes", indexed);
+        return indexed == null ? 0 : indexed;
+    }
+
+    private void drainPending() {
+        List<IndexOperation> batch = new ArrayList<>(batchSize);
+        while (running || !pending.isEmpty()) {
+            try {
+                if (rebuildNeeded.get()) {
+                    if (!running) {
+                        logger.warn("Note index is out of step with the database, rebuild it after restarting");
+                        return;
+                    }
+                    retryRebuild();
+                    continue;
+                }
+                IndexOperation first = pending.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                pending.drainTo(batch, batchSize - 1);
+                rebuildLock.lock();
+                try {
+                    // A failed rebuild in the meantime leaves partial changes that must not be committed
+                    if (!rebuildNeeded.get()) {
+                        apply(batch);
+                    }
+                } finally {
+                    rebuildLock.unlock();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                logger.error("Failed to apply {} note index changes, rebuilding the index", batch.size(), e);
+                rebuildNeeded.set(true);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void retryRebuild() throws InterruptedException {
+        try {
+            rebuild();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to rebuild the note index, retrying in {} seconds", REBUILD_RETRY_SECONDS, e);
+            TimeUnit.SECONDS.sleep(REBUILD_RETRY_SECONDS);
+        }
+    }
+
+    private void apply(List<IndexOperation> batch) throws IOException {
+        for (IndexOperation operation : batch) {
+            Term id = new Term(ID_FIELD, String.valueOf(operation.noteId()));
+            if (operation.delete()) {
+                writer.deleteDocuments(id);
+            } else {
+                writer.updateDocument(id, toDocument(operation.noteId(), operation.owner(), operation.content()));
+            }
+        }
+        writer.commit();
+        searcherManager.maybeRefresh();
+    }
+
+    private static Document toDocument(Long noteId, String owner, String content) {
+        Document document = new Document();
+        document.add(new StringField(ID_FIELD, String.valueOf(noteId), Field.Store.YES));
+        document.add(new StringField(OWNER_FIELD, owner == null ? "" : owner, Field.Store.NO));
+        document.add(new TextField(CONTENT_FIELD, content == null ? "" : content, Field.Store.YES));
+        return document;
+    }
+
+    private record IndexOperation(Long noteId, String owner, String content, boolean delete) {
+    }
+}
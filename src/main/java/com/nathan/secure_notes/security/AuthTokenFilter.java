@@ -1,7 +1,9 @@
 package com.nathan.secure_notes.security;
 
 
+import com.nathan.secure_notes.service.impl.UserDetailsImpl;
 import com.nathan.secure_notes.service.impl.UserDetailsServiceImpl;
+import com.nathan.secure_notes.util.HashUtils;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,7 +11,9 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -17,6 +21,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Component
 @RequiredArgsConstructor
@@ -30,6 +35,9 @@ import java.io.IOException;
  * Key features:
  * - Extracts JWT from Authorization header
  * - Validates token authenticity and expiration
+ * - Skips verification for tokens already held in the VerifiedTokenCache
+ * - Rejects tokens revoked through the TokenRevocationList
+ * - Optionally builds the principal from token claims instead of loading the user
  * - Sets up Spring Security authentication context
  *
  * Used in:
@@ -43,6 +51,7 @@ import java.io.IOException;
  * - Invalid token signature
  *
  * @see JwtUtils
+ * @see VerifiedTokenCache
  * @see UserDetailsServiceImpl
  */
 public class AuthTokenFilter extends OncePerRequestFilter {
@@ -51,8 +60,26 @@ public class AuthTokenFilter extends OncePerRequestFilter {
 
     private final UserDetailsServiceImpl userDetailsService;
 
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    private final UserSecurityVersions userSecurityVersions;
+
+    private final TokenRevocationList tokenRevocationList;
+
+    /**
+     * When enabled, tokens whose security version is still current are trusted on their own
+     * and the user is only loaded from the database when the version is unknown or stale
+     */
+    @Value("${spring.app.statelessAuth:true}")
+    private boolean statelessAuth;
+
     private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
+    /**
+     * Request attribute holding the token digest when an earlier filter has already computed it
+     */
+    public static final String TOKEN_DIGEST_ATTRIBUTE = AuthTokenFilter.class.getName() + ".tokenDigest";
+
     /**
      * Filters incoming HTTP requests to process JWT tokens
      *
@@ -72,11 +99,8 @@ public class AuthTokenFilter extends OncePerRequestFilter {
         logger.debug("AuthTokenFilter called for URI: {}", request.getRequestURI());
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-
+            UserDetails userDetails = jwt != null ? resolveUserDetails(jwt, tokenDigest(request, jwt)) : null;
+            if (userDetails != null && userDetails.isAccountNonLocked()) {
                 UsernamePasswordAuthenticationToken authentication =
                         new UsernamePasswordAuthenticationToken(userDetails,
                                 null,
@@ -93,6 +117,72 @@ public class AuthTokenFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+    /**
+     * Resolves the user a JWT token was issued to
+     *
+     * Tokens seen before are answered from the VerifiedTokenCache without verifying the
+     * signature or loading the user again. On a miss the token is verified once, the user
+     * is resolved and the result is cached until the token expires. Revoked tokens are
+     * rejected before anything is cached; a revocation drops the user's cached tokens, so
+     * hits never need the check.
+     *
+     * In stateless mode the user is rebuilt from the token's claims when its security
+     * version matches the one last recorded for the user; otherwise it is loaded from
+     * the database.
+     *
+     * @param jwt    The JWT token string from the Authorization header
+     * @param digest The SHA-256 digest of the token
+     * @return The authenticated user, or null if the token is invalid or expired
+     */
+    private UserDetails resolveUserDetails(String jwt, String digest) {
+        UserDetails cached = verifiedTokenCache.get(digest);
+        if (cached != null) {
+            return cached;
+        }
+
+        long epoch = verifiedTokenCache.epoch();
+        Optional<JwtClaims> claims = jwtUtils.verifyJwtToken(jwt);
+        if (claims.isEmpty() || tokenRevocationList.isRevoked(claims.get())) {
+            return null;
+        }
+        UserDetails userDetails = statelessAuth ? userDetailsFromClaims(claims.get()) : null;
+        if (userDetails == null) {
+            userDetails = userDetailsService.loadUserByUsername(claims.get().subject());
+        }
+        verifiedTokenCache.put(digest, claims.get(), userDetails, epoch);
+        return userDetails;
+    }
+
+    private static String tokenDigest(HttpServletRequest request, String jwt) {
+        Object digest = request.getAttribute(TOKEN_DIGEST_ATTRIBUTE);
+        return digest != null ? (String) digest : HashUtils.sha256Hex(jwt);
+    }
+
+    /**
+     * Builds the principal straight from verified claims without touching the database
+     *
+     * @param claims The verified claims of the token
+     * @return The user described by the claims, or null if the token predates the user's
+     *         current security version or the version is not known yet
+     */
+    private UserDetails userDetailsFromClaims(JwtClaims claims) {
+        if (claims.userId() == null || claims.securityVersion() == null) {
+            return null;
+        }
+        Integer currentVersion = userSecurityVersions.current(claims.subject());
+        if (!claims.securityVersion().equals(currentVersion)) {
+            return null;
+        }
+        return new UserDetailsImpl(
+                claims.userId(),
+                claims.subject(),
+                null,
+                null,
+                false,
+                claims.securityVersion(),
+                claims.roles().stream().map(SimpleGrantedAuthority::new).toList());
+    }
+
     /**
      * Parses JWT token from the Authorization header of an HTTP request
      *
@@ -0,0 +1,22 @@
+package com.nathan.secure_notes.security;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Typed view of the claims carried by a verified JWT token
+ *
+ * Produced by {@link JwtUtils#verifyJwtToken(String)} after a single parse and
+ * signature check, so callers never need to parse the same token twice.
+ *
+ * @param subject   The username the token was issued to
+ * @param issuedAt  When the token was issued
+ * @param expiresAt When the token stops being valid
+ * @param roles     The authorities granted to the user when the token was issued
+ * @param userId          The id of the user, or null for tokens issued without it
+ * @param securityVersion The user's security version when the token was issued, or null if absent
+ * @param tokenId         The token's jti, used to revoke it, or null for tokens issued without one
+ */
+public record JwtClaims(String subject, Instant issuedAt, Instant expiresAt, List<String> roles,
+                        Long userId, Integer securityVersion, String tokenId) {
+}
@@ -1,21 +1,36 @@
 package com.nathan.secure_notes.security;
 
+import com.nathan.secure_notes.service.impl.UserDetailsImpl;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
-import java.security.Key;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 
 
@@ -53,6 +68,53 @@ public class JwtUtils {
     @Value("${spring.app.jwtExpirationMs}")
     private int jwtExpirationMs;
 
+    /**
+     * Claim holding the user's authorities at the time the token was issued
+     */
+    static final String ROLES_CLAIM = "roles";
+
+    /**
+     * Claims identifying the user and the security version of their account at issue time
+     * Only present on tokens issued for a UserDetailsImpl
+     */
+    static final String USER_ID_CLAIM = "uid";
+    static final String SECURITY_VERSION_CLAIM = "sv";
+
+    /**
+     * HMAC key and parser built once from jwtSecret
+     * Both are immutable and thread-safe, so every request can share them
+     */
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    /**
+     * jwt.verify timers, one per outcome, registered once so recording is a map lookup
+     */
+    static final List<String> VERIFY_OUTCOMES = List.of("valid", "expired", "malformed", "unsupported", "empty", "invalid");
+
+    private final MeterRegistry meterRegistry;
+    private Map<String, Timer> verifyTimers;
+
+    public JwtUtils(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Decodes the secret and prepares the signing key and parser once at startup
+     * instead of on every token operation
+     */
+    @PostConstruct
+    void init() {
+        this.signingKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+        this.jwtParser = Jwts.parser().verifyWith(signingKey).build();
+        this.verifyTimers = VERIFY_OUTCOMES.stream().collect(Collectors.toUnmodifiableMap(
+                Function.identity(),
+                outcome -> Timer.builder("jwt.verify")
+                        .description("Parsing and signature verification of bearer tokens")
+                        .tag("outcome", outcome)
+                        .register(meterRegistry)));
+    }
+
     /**
      * Extracts JWT token from the Authorization header in HTTP request
      * Used in filter chains to process incoming requests
@@ -73,16 +135,32 @@ public class JwtUtils {
      * Generates a new JWT token for a given user
      * Used during login/authentication process to create user tokens
      *
+     * Besides the username and roles, tokens issued for a UserDetailsImpl carry the user id
+     * and security version so that AuthTokenFilter can rebuild the principal without a
+     * database lookup when stateless authentication is enabled. Every token gets a random
+     * jti so that TokenRevocationList can revoke it on its own.
+     *
      * @param userDetails Spring Security user details containing username and authorities
      * @return A signed JWT token string
      */
     public String generateTokenFromUsername(UserDetails userDetails) {
         String username = userDetails.getUsername();
-        return Jwts.builder()
+        List<String> roles = userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+        Date now = new Date();
+        JwtBuilder builder = Jwts.builder()
+                .id(UUID.randomUUID().toString())
                 .subject(username)
-                .issuedAt(new Date())
-                .expiration(new Date((new Date()).getTime() + jwtExpirationMs))
-                .signWith(key())
+                .claim(ROLES_CLAIM, roles);
+        if (userDetails instanceof UserDetailsImpl user) {
+            builder.claim(USER_ID_CLAIM, user.getId())
+                    .claim(SECURITY_VERSION_CLAIM, user.getSecurityVersion());
+        }
+        return builder
+                .issuedAt(now)
+                .expiration(new Date(now.getTime() + jwtExpirationMs))
+                .signWith(signingKey)
                 .compact();
     }
 
@@ -94,20 +172,57 @@ public class JwtUtils {
      * @return The username (subject) contained in the token
      */
     public String getUserNameFromJwtToken(String token) {
-        return Jwts.parser()
-                        .verifyWith((SecretKey) key())
-                .build().parseSignedClaims(token)
+        return jwtParser.parseSignedClaims(token)
                 .getPayload().getSubject();
     }
 
     /**
-     * Generates a secret key from the base64-encoded jwtSecret
-     * Used in token signing and verification processes
+     * Parses a JWT token and verifies its signature and expiration in a single pass
+     *
+     * This is the preferred entry point for request authentication: the token is parsed
+     * once with the shared parser and the result is returned as typed claims, so callers
+     * do not need a separate validateJwtToken/getUserNameFromJwtToken round trip.
      *
-     * @return A SecretKey instance for HMAC-SHA algorithms
+     * @param authToken The JWT token string to verify
+     * @return The verified claims, or empty if the token is invalid or expired
      */
-    private Key key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    public Optional<JwtClaims> verifyJwtToken(String authToken) {
+        long start = System.nanoTime();
+        String outcome = "invalid";
+        try {
+            Claims claims = jwtParser.parseSignedClaims(authToken).getPayload();
+            outcome = "valid";
+            return Optional.of(toJwtClaims(claims));
+        } catch (MalformedJwtException e) {
+            outcome = "malformed";
+            logger.error("Invalid JWT token: {}", e.getMessage());
+        } catch (ExpiredJwtException e) {
+            outcome = "expired";
+            logger.error("JWT token is expired: {}", e.getMessage());
+        } catch (UnsupportedJwtException e) {
+            outcome = "unsupported";
+            logger.error("JWT token is unsupported: {}", e.getMessage());
+        } catch (IllegalArgumentException e) {
+            outcome = "empty";
+            logger.error("JWT claims string is empty: {}", e.getMessage());
+        } catch (JwtException e) {
+            logger.error("JWT token could not be verified: {}", e.getMessage());
+        } finally {
+            verifyTimers.get(outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        return Optional.empty();
+    }
+
+    private JwtClaims toJwtClaims(Claims claims) {
+        List<?> roles = claims.get(ROLES_CLAIM, List.class);
+        return new JwtClaims(
+                claims.getSubject(),
+                claims.getIssuedAt().toInstant(),
+                claims.getExpiration().toInstant(),
+                roles == null ? List.of() : roles.stream().map(String::valueOf).toList(),
+                claims.get(USER_ID_CLAIM, Long.class),
+                claims.get(SECURITY_VERSION_CLAIM, Integer.class),
+                claims.getId());
     }
 
 /**
@@ -135,8 +250,7 @@ public class JwtUtils {
  */
 public boolean validateJwtToken(String authToken) {
         try {
-            System.out.println("Validate");
-            Jwts.parser().verifyWith((SecretKey) key()).build().parseSignedClaims(authToken);
+            jwtParser.parseSignedClaims(authToken);
             return true;
         } catch (MalformedJwtException e) {
             logger.error("Invalid JWT token: {}", e.getMessage());
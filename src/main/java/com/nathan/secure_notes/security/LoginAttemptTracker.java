@@ -0,0 +1,235 @@
+package com.nathan.secure_notes.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Failed sign-in attempts per username and per client IP, kept in memory
+ *
+ * Once a username reaches spring.app.loginMaxFailures consecutive failures, or an IP reaches
+ * spring.app.loginIpMaxFailures, further attempts are refused for a backoff that starts at
+ * spring.app.loginBackoffBaseSeconds and doubles with every further failure up to
+ * spring.app.loginBackoffMaxSeconds. Failures are forgotten once
+ * spring.app.loginFailureWindowSeconds pass without another one; the window must be longer than
+ * the maximum backoff, so that retrying as soon as a backoff ends keeps counting towards the
+ * permanent lock. A successful sign-in clears the username.
+ *
+ * AuthController reserves every attempt with tryBegin before authenticating, so a throttled
+ * attempt never reaches the password encoder, and ends it with recordFailure, recordSuccess or
+ * release. The reservation is made atomically per key and counts attempts still in flight as
+ * failures, so a parallel burst gets no more attempts through than a sequential one would:
+ * once the next failure could reach a threshold, attempts go one at a time.
+ *
+ * recordFailure reports when a username reaches spring.app.loginPermanentLockFailures; the
+ * caller then locks the account in the database, which only an admin can undo.
+ *
+ * Entries are bounded by spring.app.loginTrackerMaxEntries: when full, entries that are no
+ * longer blocking go first, then arbitrary ones. Usernames are compared case-insensitively,
+ * as the database does.
+ */
+@Component
+public class LoginAttemptTracker {
+
+    private final int maxFailures;
+    private final int ipMaxFailures;
+    private final int permanentLockFailures;
+    private final long backoffBaseNanos;
+    private final long backoffMaxNanos;
+    private final long failureWindowNanos;
+    private final int maxEntries;
+    private final LongSupplier nanoClock;
+
+    private final Map<String, Attempts> attempts = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final LongAdder throttled = new LongAdder();
+
+    @Autowired
+    public LoginAttemptTracker(@Value("${spring.app.loginMaxFailures:5}") int maxFailures,
+                               @Value("${spring.app.loginIpMaxFailures:50}") int ipMaxFailures,
+                               @Value("${spring.app.loginPermanentLockFailures:20}") int permanentLockFailures,
+                               @Value("${spring.app.loginBackoffBaseSeconds:1}") long backoffBaseSeconds,
+                               @Value("${spring.app.loginBackoffMaxSeconds:900}") long backoffMaxSeconds,
+                               @Value("${spring.app.loginFailureWindowSeconds:86400}") long failureWindowSeconds,
+                               @Value("${spring.app.loginTrackerMaxEntries:100000}") int maxEntries,
+                               MeterRegistry meterRegistry) {
+        this(maxFailures, ipMaxFailures, permanentLockFailures, backoffBaseSeconds, backoffMaxSeconds,
+                failureWindowSeconds, maxEntries, meterRegistry, System::nanoTime);
+    }
+
+    LoginAttemptTracker(int maxFailures, int ipMaxFailures, int permanentLockFailures, long backoffBaseSeconds,
+                        long backoffMaxSeconds, long failureWindowSeconds, int maxEntries,
+                        MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        if (failureWindowSeconds <= backoffMaxSeconds) {
+            throw new IllegalArgumentException("loginFailureWindowSeconds must be longer than loginBackoffMaxSeconds, "
+                    + "or failures are forgotten before the permanent lock can be reached");
+        }
+        this.maxFailures = maxFailures;
+        this.ipMaxFailures = ipMaxFailures;
+        this.permanentLockFailures = permanentLockFailures;
+        this.backoffBaseNanos = TimeUnit.SECONDS.toNanos(backoffBaseSeconds);
+        this.backoffMaxNanos = TimeUnit.SECONDS.toNanos(backoffMaxSeconds);
+        this.failureWindowNanos = TimeUnit.SECONDS.toNanos(failureWindowSeconds);
+        this.maxEntries = maxEntries;
+        this.nanoClock = nanoClock;
+
+        FunctionCounter.builder("login.throttled", throttled, LongAdder::sum)
+                .description("Sign-in attempts refused before authentication")
+                .register(meterRegistry);
+        Gauge.builder("login.attempts.tracked", attempts, Map::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reserves a sign-in attempt for the username and IP unless either is throttled
+     * An admitted attempt must be ended with recordFailure, recordSuccess or release.
+     *
+     * @return 0 if the attempt may go ahead, otherwise nanoseconds to wait before trying again
+     */
+    public long tryBegin(String username, String ip) {
+        long now = nanoClock.getAsLong();
+        if (attempts.size() >= maxEntries) {
+            evict(now);
+        }
+        String userKey = userKey(username);
+        long[] blockedFor = new long[1];
+        attempts.compute(userKey, (key, previous) -> reserve(previous, now, maxFailures, blockedFor));
+        if (blockedFor[0] == 0) {
+            attempts.compute(ipKey(ip), (key, previous) -> reserve(previous, now, ipMaxFailures, blockedFor));
+            if (blockedFor[0] > 0) {
+                attempts.computeIfPresent(userKey, (key, previous) -> release(previous));
+            }
+        }
+        if (blockedFor[0] > 0) {
+            throttled.increment();
+        }
+        return blockedFor[0];
+    }
+
+    /**
+     * Ends an attempt that failed with a wrong password
+     *
+     * @return true exactly once, when the username reaches the permanent lock threshold
+     */
+    public boolean recordFailure(String username, String ip) {
+        long now = nanoClock.getAsLong();
+        attempts.compute(ipKey(ip), (key, previous) -> fail(previous, now, ipMaxFailures));
+        Attempts user = attempts.compute(userKey(username), (key, previous) -> fail(previous, now, maxFailures));
+        return user.failures() == permanentLockFailures;
+    }
+
+    /**
+     * Ends an attempt that signed in, forgetting the username's failures
+     */
+    public void recordSuccess(String username, String ip) {
+        release(username, ip);
+        reset(username);
+    }
+
+    /**
+     * Ends an attempt that failed for another reason than the password, without counting it
+     */
+    public void release(String username, String ip) {
+        attempts.computeIfPresent(ipKey(ip), (key, previous) -> release(previous));
+        attempts.computeIfPresent(userKey(username), (key, previous) -> release(previous));
+    }
+
+    /**
+     * Forgets the username's failures after a successful sign-in or an admin unlock
+     */
+    public void reset(String username) {
+        attempts.remove(userKey(username));
+    }
+
+    /**
+     * Admits the attempt if the key is not blocked and either nothing is in flight for it or
+     * every attempt in flight could fail without reaching the threshold
+     */
+    private Attempts reserve(Attempts previous, long now, int threshold, long[] blockedFor) {
+        Attempts current = previous == null || previous.expired(now, failureWindowNanos)
+                ? new Attempts(0, now, now, previous == null ? 0 : previous.inFlight())
+                : previous;
+        if (current.blockedUntilNanos() > now) {
+            blockedFor[0] = current.blockedUntilNanos() - now;
+            return current;
+        }
+        if (current.inFlight() > 0 && current.failures() + current.inFlight() >= threshold) {
+            blockedFor[0] = backoffBaseNanos;
+            return current;
+        }
+        return current.reserve();
+    }
+
+    /**
+     * @return null, removing the entry, once it holds neither failures nor attempts in flight
+     */
+    private static Attempts release(Attempts previous) {
+        Attempts released = previous.release();
+        return released.failures() == 0 && released.inFlight() == 0 ? null : released;
+    }
+
+    private Attempts fail(Attempts previous, long now, int threshold) {
+        int failures = previous == null || previous.expired(now, failureWindowNanos)
+                ? 1
+                : previous.failures() + 1;
+        long blockedUntil = now;
+        if (failures >= threshold) {
+            int doublings = Math.min(failures - threshold, 62);
+            long backoff = backoffBaseNanos << doublings;
+            blockedUntil = now + (backoff <= 0 || backoff > backoffMaxNanos ? backoffMaxNanos : backoff);
+        }
+        int inFlight = previous == null ? 0 : Math.max(0, previous.inFlight() - 1);
+        return new Attempts(failures, now, blockedUntil, inFlight);
+    }
+
+    private void evict(long now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            attempts.values().removeIf(entry -> entry.inFlight() == 0 && entry.blockedUntilNanos() <= now);
+            Iterator<Attempts> iterator = attempts.values().iterator();
+            while (attempts.size() >= maxEntries && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private static String userKey(String username) {
+        return "user:" + (username == null ? "" : username.toLowerCase(Locale.ROOT));
+    }
+
+    private static String ipKey(String ip) {
+        return "ip:" + ip;
+    }
+
+    private record Attempts(int failures, long lastFailureNanos, long blockedUntilNanos, int inFlight) {
+
+        boolean expired(long now, long windowNanos) {
+            return now - lastFailureNanos > windowNanos;
+        }
+
+        Attempts reserve() {
+            return new Attempts(failures, lastFailureNanos, blockedUntilNanos, inFlight + 1);
+        }
+
+        Attempts release() {
+            return new Attempts(failures, lastFailureNanos, blockedUntilNanos, Math.max(0, inFlight - 1));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.nathan.secure_notes.security;
+
+import com.nathan.secure_notes.exception.PasswordHashingRejectedException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Dedicated pool for CPU-bound password hashing
+ *
+ * Hashing runs on spring.app.passwordHashThreads threads (the number of cores by default) with
+ * at most spring.app.passwordHashQueueCapacity hashes waiting. When both are full new work is
+ * rejected straight away with PasswordHashingRejectedException (503), so a login storm is
+ * capped at the pool's size and request threads stay available for the notes API.
+ *
+ * Publishes password.hash.queue.size and password.hash.active gauges, a password.hash timer
+ * (tagged by operation, measured on the pool thread) and a password.hash.rejected counter.
+ *
+ * @see OffloadedPasswordEncoder
+ */
+@Component
+public class PasswordHashingPool {
+
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+
+    public PasswordHashingPool(@Value("${spring.app.passwordHashThreads:0}") int threads,
+                               @Value("${spring.app.passwordHashQueueCapacity:100}") int queueCapacity,
+                               MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("password-hash-", 0).daemon().factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("password.hash.queue.size", executor, pool -> pool.getQueue().size())
+                .description("Password hashes waiting for a hashing thread")
+                .register(meterRegistry);
+        Gauge.builder("password.hash.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashes currently running")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs a hashing operation on the pool and waits for its result
+     *
+     * @param operation Name of the operation, used as the timer's tag
+     * @param task      The hashing work
+     * @return The task's result
+     * @throws PasswordHashingRejectedException If the pool and its queue are full
+     */
+    public <T> T run(String operation, Supplier<T> task) {
+        Timer timer = meterRegistry.timer("password.hash", "operation", operation);
+        Future<T> result;
+        try {
+            result = executor.submit(() -> timer.record(task));
+        } catch (RejectedExecutionException e) {
+            meterRegistry.counter("password.hash.rejected", "operation", operation).increment();
+            throw new PasswordHashingRejectedException("Too many concurrent password operations, retry shortly");
+        }
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,177 @@
+package com.nathan.secure_notes.security;
+
+import com.nathan.secure_notes.model.RevokedToken;
+import com.nathan.secure_notes.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Access tokens revoked before their expiry, checked in memory on every token verification
+ *
+ * Two kinds of revocation are held in ConcurrentHashMaps, so a check is two lookups:
+ * - single tokens by jti, kept until the token's own expiry (sign-out)
+ * - per-user not-before instants: every token of the user issued at or before it is revoked,
+ *   kept for one access token lifetime (lock, disable, password or role change)
+ *
+ * Token ids are held as UUIDs and entries leave as soon as the tokens they match have expired,
+ * so with access tokens lasting spring.app.jwtExpirationMs the maps only ever hold that window
+ * of revocations. spring.app.tokenRevocationMaxIds caps the jti map regardless: once it is full a
+ * further sign-out revokes all of that user's current tokens instead, which is safe if coarse.
+ *
+ * Every revocation is written to revoked_tokens. The table is loaded at startup and polled every
+ * spring.app.tokenRevocationSyncMs for rows written by other instances; a new revocation drops the
+ * user's entries from the VerifiedTokenCache, so cached tokens never bypass it. JWT iat has
+ * second precision, so a token issued in the same second as a not-before is revoked as well.
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    /**
+     * How far back each poll looks again, to cover slow commits and clock skew between instances
+     */
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(30);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final Duration accessTokenLifetime;
+    private final int maxRevokedIds;
+
+    private final Map<UUID, Instant> revokedIds = new ConcurrentHashMap<>();
+    private final Map<String, Instant> notBefore = new ConcurrentHashMap<>();
+    private volatile Instant lastSync = Instant.EPOCH;
+
+    public TokenRevocationList(RevokedTokenRepository revokedTokenRepository,
+                               VerifiedTokenCache verifiedTokenCache,
+                               @Value("${spring.app.jwtExpirationMs}") long jwtExpirationMs,
+                               @Value("${spring.app.tokenRevocationMaxIds:200000}") int maxRevokedIds,
+                               MeterRegistry meterRegistry) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.accessTokenLifetime = Duration.ofMillis(jwtExpirationMs);
+        this.maxRevokedIds = maxRevokedIds;
+
+        Gauge.builder("auth.token.revoked", revokedIds, Map::size)
+                .tag("kind", "token")
+                .register(meterRegistry);
+        Gauge.builder("auth.token.revoked", notBefore, Map::size)
+                .tag("kind", "user")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void load() {
+        sync();
+    }
+
+    /**
+     * @param claims The verified claims of a token
+     * @return true if the token was revoked by id or issued at or before its user's not-before
+     */
+    public boolean isRevoked(JwtClaims claims) {
+        Instant userNotBefore = notBefore.get(claims.subject());
+        if (userNotBefore != null && !claims.issuedAt().isAfter(userNotBefore)) {
+            return true;
+        }
+        return claims.tokenId() != null && revokedIds.containsKey(toKey(claims.tokenId()));
+    }
+
+    /**
+     * Revokes a single token until it expires
+     *
+     * @param claims The verified claims of the token to revoke
+     */
+    public void revoke(JwtClaims claims) {
+        if (claims.tokenId() == null || revokedIds.size() >= maxRevokedIds) {
+            revokeAllForUser(claims.subject());
+            return;
+        }
+        RevokedToken row = new RevokedToken(claims.tokenId(), claims.subject(), null, claims.expiresAt());
+        apply(revokedTokenRepository.save(row));
+    }
+
+    /**
+     * Revokes every token issued to a user up to now
+     *
+     * @param username The user whose tokens are revoked
+     */
+    public void revokeAllForUser(String username) {
+        Instant now = Instant.now();
+        RevokedToken row = new RevokedToken(null, username, now, now.plus(accessTokenLifetime));
+        apply(revokedTokenRepository.save(row));
+    }
+
+    /**
+     * Picks up revocations written by other instances
+     */
+    @Scheduled(fixedDelayString = "${spring.app.tokenRevocationSyncMs:5000}")
+    public void sync() {
+        Instant now = Instant.now();
+        Instant since = lastSync.equals(Instant.EPOCH) ? Instant.EPOCH : lastSync.minus(SYNC_OVERLAP);
+        int applied = 0;
+        for (RevokedToken row : revokedTokenRepository.findRecent(since, now)) {
+            if (apply(row)) {
+                applied++;
+            }
+        }
+        lastSync = now;
+        if (applied > 0) {
+            logger.debug("Applied {} token revocations from the database", applied);
+        }
+    }
+
+    /**
+     * Forgets revocations whose tokens have all expired, in memory and in the database
+     */
+    @Scheduled(fixedDelayString = "${spring.app.tokenRevocationPruneMs:60000}")
+    public void prune() {
+        Instant now = Instant.now();
+        revokedIds.values().removeIf(expiresAt -> expiresAt.isBefore(now));
+        Instant oldestLiveIssue = now.minus(accessTokenLifetime);
+        notBefore.values().removeIf(instant -> instant.isBefore(oldestLiveIssue));
+        revokedTokenRepository.deleteExpired(now);
+    }
+
+    /**
+     * @return true if the row revoked something that was not revoked already
+     */
+    private boolean apply(RevokedToken row) {
+        boolean added;
+        if (row.getTokenId() != null) {
+            added = revokedIds.putIfAbsent(toKey(row.getTokenId()), row.getExpiresAt()) == null;
+        } else {
+            Instant previous = notBefore.get(row.getUserName());
+            added = previous == null || previous.isBefore(row.getNotBefore());
+            if (added) {
+                notBefore.merge(row.getUserName(), row.getNotBefore(),
+                        (current, candidate) -> current.isAfter(candidate) ? current : candidate);
+            }
+        }
+        if (added) {
+            verifiedTokenCache.invalidateUser(row.getUserName());
+        }
+        return added;
+    }
+
+    private static UUID toKey(String tokenId) {
+        try {
+            return UUID.fromString(tokenId);
+        } catch (IllegalArgumentException e) {
+            return UUID.nameUUIDFromBytes(tokenId.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.nathan.secure_notes.security;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Cache of users loaded by UserDetailsServiceImpl
+ *
+ * Entries are bounded by spring.app.userCacheMaxSize and expire spring.app.userCacheTtlSeconds
+ * after they were loaded. Concurrent lookups for the same username share a single load, so a
+ * burst of requests for one user results in one database query.
+ *
+ * Loads run on their own virtual thread and callers wait on the shared future. A synchronous
+ * Caffeine load would run the database query inside ConcurrentHashMap.compute, which holds a
+ * monitor and would pin the caller's carrier thread when requests run on virtual threads.
+ *
+ * UserServiceImpl evicts a user whenever it changes something that UserDetailsImpl carries
+ * (role, lock, enabled, expiry, password, 2FA). Statistics are served by the usercache
+ * actuator endpoint and published as cache.* metrics tagged cache=users.
+ *
+ * @see UserDetailsCacheEndpoint
+ */
+@Component
+public class UserDetailsCache {
+
+    private final ExecutorService loadExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AsyncCache<String, UserDetails> users;
+
+    public UserDetailsCache(@Value("${spring.app.userCacheMaxSize:10000}") long maxSize,
+                            @Value("${spring.app.userCacheTtlSeconds:300}") long ttlSeconds,
+                            MeterRegistry meterRegistry) {
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .executor(loadExecutor)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "users");
+    }
+
+    /**
+     * Returns the cached user, loading it at most once if it is not cached yet
+     *
+     * @param username The username to look up
+     * @param loader   Loads the user on a miss; exceptions it throws are propagated and nothing is cached
+     * @return The cached or freshly loaded user
+     */
+    public UserDetails get(String username, Function<String, UserDetails> loader) {
+        CompletableFuture<UserDetails> user = users.get(username,
+                (key, executor) -> CompletableFuture.supplyAsync(() -> loader.apply(key), executor));
+        try {
+            return user.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Drops a user so the next lookup reloads it from the database
+     *
+     * @param username The username to evict
+     */
+    public void evict(String username) {
+        users.synchronous().invalidate(username);
+    }
+
+    public void evictAll() {
+        users.synchronous().invalidateAll();
+    }
+
+    public UserCacheStats stats() {
+        CacheStats stats = users.synchronous().stats();
+        return new UserCacheStats(
+                stats.hitCount(),
+                stats.missCount(),
+                stats.hitRate(),
+                stats.loadSuccessCount(),
+                stats.loadFailureCount(),
+                Duration.ofNanos(stats.totalLoadTime()).toMillis(),
+                stats.evictionCount(),
+                users.synchronous().estimatedSize());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        loadExecutor.shutdown();
+    }
+
+    public record UserCacheStats(long hits, long misses, double hitRate, long loads, long loadFailures,
+                                 long totalLoadTimeMs, long evictions, long size) {
+    }
+}
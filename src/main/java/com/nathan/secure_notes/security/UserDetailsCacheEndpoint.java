@@ -0,0 +1,37 @@
+package com.nathan.secure_notes.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint exposing the UserDetailsCache at /actuator/usercache
+ *
+ * GET returns hit/miss/load/eviction statistics for sizing the cache,
+ * DELETE drops every entry and DELETE /{username} drops a single user.
+ */
+@Component
+@Endpoint(id = "usercache")
+@RequiredArgsConstructor
+public class UserDetailsCacheEndpoint {
+
+    private final UserDetailsCache userDetailsCache;
+
+    @ReadOperation
+    public UserDetailsCache.UserCacheStats stats() {
+        return userDetailsCache.stats();
+    }
+
+    @DeleteOperation
+    public void evictAll() {
+        userDetailsCache.evictAll();
+    }
+
+    @DeleteOperation
+    public void evict(@Selector String username) {
+        userDetailsCache.evict(username);
+    }
+}
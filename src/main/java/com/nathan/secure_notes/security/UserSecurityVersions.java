@@ -0,0 +1,52 @@
+package com.nathan.secure_notes.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * In-memory record of each user's current security version
+ *
+ * Used in stateless authentication mode to decide whether the claims of a token can be
+ * trusted without touching the database. The version is learned the first time a user is
+ * loaded from the database and updated by UserServiceImpl whenever it changes, so a token
+ * whose version no longer matches forces a fresh database lookup.
+ *
+ * Entries are bounded by spring.app.securityVersionCacheMaxSize and expire
+ * spring.app.securityVersionCacheTtlSeconds after they were last recorded. A user who is no
+ * longer held is simply unknown again, which also sends their next token to the database.
+ */
+@Component
+public class UserSecurityVersions {
+
+    private final Cache<String, Integer> versions;
+
+    public UserSecurityVersions(@Value("${spring.app.securityVersionCacheMaxSize:100000}") long maxSize,
+                                @Value("${spring.app.securityVersionCacheTtlSeconds:3600}") long ttlSeconds) {
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * @param username The username to look up
+     * @return The last known security version, or null if this user has not been seen yet
+     */
+    public Integer current(String username) {
+        return versions.getIfPresent(username);
+    }
+
+    /**
+     * Records the current security version of a user, never moving it backwards
+     *
+     * @param username The username the version belongs to
+     * @param version  The security version stored on the user's account
+     */
+    public void record(String username, int version) {
+        versions.asMap().merge(username, version, Math::max);
+    }
+}
@@ -0,0 +1,185 @@
+package com.nathan.secure_notes.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of JWT tokens that have already been verified
+ *
+ * Clients reuse the same bearer token until it expires, so once a token has been parsed,
+ * its signature checked and its user loaded, the result is kept here keyed by a SHA-256
+ * digest of the token. AuthTokenFilter consults the cache first and skips HMAC verification,
+ * parsing and the user lookup on a hit.
+ *
+ * Entries are dropped when the token's own expiry passes, when the cache is full, or when
+ * the account they belong to is changed through UserServiceImpl (lock, disable, expiry, role).
+ * Hits, misses, evictions and size are published as auth.token.cache metrics.
+ *
+ * @see AuthTokenFilter
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final int maxSize;
+
+    private final Map<String, CachedToken> tokens = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> digestsByUser = new ConcurrentHashMap<>();
+
+    /**
+     * Bumped on every invalidation so that a filter which started loading a user
+     * before the invalidation cannot put the stale result back afterwards
+     */
+    private final AtomicLong epoch = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public VerifiedTokenCache(@Value("${spring.app.tokenCacheMaxSize:10000}") int maxSize,
+                              MeterRegistry meterRegistry) {
+        this.maxSize = maxSize;
+
+        FunctionCounter.builder("auth.token.cache", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("auth.token.cache", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("auth.token.cache.evictions", evictions, LongAdder::sum)
+                .register(meterRegistry);
+        Gauge.builder("auth.token.cache.size", tokens, Map::size)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Looks up a previously verified token
+     *
+     * @param digest The SHA-256 digest of the token
+     * @return The user the token was verified for, or null on a miss or if the token has expired
+     */
+    public UserDetails get(String digest) {
+        CachedToken cached = tokens.get(digest);
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+        if (cached.isExpired(Instant.now())) {
+            remove(digest, cached);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return cached.userDetails();
+    }
+
+    /**
+     * Username of a previously verified, unexpired token, without counting a hit or miss
+     * Used by RateLimitFilter to key requests before AuthTokenFilter has run
+     *
+     * @param digest The SHA-256 digest of the token
+     * @return The username the token was verified for, or null if it is not cached
+     */
+    public String verifiedUsername(String digest) {
+        CachedToken cached = tokens.get(digest);
+        if (cached == null || cached.isExpired(Instant.now())) {
+            return null;
+        }
+        return cached.userDetails().getUsername();
+    }
+
+    /**
+     * Current invalidation epoch, to be read before verifying a token and passed back to put
+     */
+    public long epoch() {
+        return epoch.get();
+    }
+
+    /**
+     * Stores a verified token until its expiry
+     *
+     * @param digest      The SHA-256 digest of the token
+     * @param claims      The verified claims of the token
+     * @param userDetails The user loaded for the token's subject
+     * @param epoch       The value of epoch() read before the token was verified
+     */
+    public void put(String digest, JwtClaims claims, UserDetails userDetails, long epoch) {
+        if (tokens.size() >= maxSize) {
+            evict();
+        }
+        String username = userDetails.getUsername();
+        digestsByUser.computeIfAbsent(username, key -> ConcurrentHashMap.newKeySet()).add(digest);
+        CachedToken cached = new CachedToken(userDetails, claims.expiresAt());
+        tokens.put(digest, cached);
+        if (this.epoch.get() != epoch) {
+            // An invalidation raced with this verification; do not keep what may be stale
+            remove(digest, cached);
+        }
+    }
+
+    /**
+     * Drops every cached token belonging to a user
+     * Called whenever the account's lock, enabled, expiry or role state changes
+     *
+     * @param username The username whose tokens must be verified again
+     */
+    public void invalidateUser(String username) {
+        epoch.incrementAndGet();
+        Set<String> digests = digestsByUser.remove(username);
+        if (digests != null) {
+            digests.forEach(tokens::remove);
+        }
+    }
+
+    public TokenCacheStats stats() {
+        return new TokenCacheStats(hits.sum(), misses.sum(), evictions.sum(), tokens.size());
+    }
+
+    /**
+     * Makes room for a new entry: expired tokens go first, then arbitrary entries
+     * until the cache is back under its size limit
+     */
+    private void evict() {
+        Instant now = Instant.now();
+        tokens.forEach((digest, cached) -> {
+            if (cached.isExpired(now)) {
+                remove(digest, cached);
+            }
+        });
+        Iterator<Map.Entry<String, CachedToken>> iterator = tokens.entrySet().iterator();
+        while (tokens.size() >= maxSize && iterator.hasNext()) {
+            Map.Entry<String, CachedToken> entry = iterator.next();
+            remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void remove(String digest, CachedToken cached) {
+        if (tokens.remove(digest, cached)) {
+            evictions.increment();
+            digestsByUser.computeIfPresent(cached.userDetails().getUsername(), (username, digests) -> {
+                digests.remove(digest);
+                return digests.isEmpty() ? null : digests;
+            });
+        }
+    }
+
+    private record CachedToken(UserDetails userDetails, Instant expiresAt) {
+        boolean isExpired(Instant now) {
+            return !now.isBefore(expiresAt);
+        }
+    }
+
+    public record TokenCacheStats(long hits, long misses, long evictions, int size) {
+    }
+}
@@ -0,0 +1,163 @@
+package com.nathan.secure_notes.security.custom;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Preallocated ring buffer of access log entries, written out by a background thread
+ *
+ * Request threads claim a slot with a single CAS and fill in its fields, so recording an
+ * entry never allocates, never takes a lock and never touches I/O. The writer thread drains
+ * published slots in order and logs each as a JSON line to the "access" logger. When the
+ * buffer is full the entry is dropped and counted in access.log.dropped rather than making
+ * the request wait.
+ */
+@Component
+public class AccessLogBuffer {
+
+    private static final Logger accessLogger = LoggerFactory.getLogger("access");
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final Slot[] slots;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Next sequence the writer will read; only written by the writer thread
+     */
+    private volatile long consumed;
+
+    private Thread writer;
+    private volatile boolean running;
+
+    public AccessLogBuffer(@Value("${spring.app.accessLogBufferSize:8192}") int bufferSize,
+                           MeterRegistry meterRegistry) {
+        int capacity = Integer.highestOneBit(Math.max(bufferSize, 2) - 1) << 1;
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = capacity - 1;
+        FunctionCounter.builder("access.log.dropped", dropped, LongAdder::sum)
+                .description("Access log entries dropped because the buffer was full")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        writer = Thread.ofPlatform().name("access-log-writer").daemon().start(this::drain);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writer.join();
+    }
+
+    /**
+     * Records one request; returns immediately, dropping the entry if the buffer is full
+     */
+    public void record(long timestampMillis, String method, String path, int status, long latencyNanos, String principal) {
+        long sequence;
+        do {
+            sequence = claimed.get();
+            if (sequence - consumed >= slots.length) {
+                dropped.increment();
+                return;
+            }
+        } while (!claimed.compareAndSet(sequence, sequence + 1));
+
+        Slot slot = slots[(int) (sequence & mask)];
+        slot.timestampMillis = timestampMillis;
+        slot.method = method;
+        slot.path = path;
+        slot.status = status;
+        slot.latencyNanos = latencyNanos;
+        slot.principal = principal;
+        slot.published = sequence;
+    }
+
+    private void drain() {
+        StringBuilder line = new StringBuilder(256);
+        while (running || consumed < claimed.get()) {
+            long sequence = consumed;
+            Slot slot = slots[(int) (sequence & mask)];
+            if (slot.published != sequence) {
+                if (!running && sequence >= claimed.get()) {
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+                continue;
+            }
+            line.setLength(0);
+            format(slot, line);
+            slot.method = null;
+            slot.path = null;
+            slot.principal = null;
+            consumed = sequence + 1;
+            accessLogger.info(line.toString());
+        }
+    }
+
+    private static void format(Slot slot, StringBuilder line) {
+        line.append("{\"ts\":\"").append(Instant.ofEpochMilli(slot.timestampMillis))
+                .append("\",\"method\":\"").append(slot.method)
+                .append("\",\"path\":");
+        appendJsonString(line, slot.path);
+        line.append(",\"status\":").append(slot.status)
+                .append(",\"latencyMicros\":").append(TimeUnit.NANOSECONDS.toMicros(slot.latencyNanos))
+                .append(",\"principal\":");
+        appendJsonString(line, slot.principal);
+        line.append('}');
+    }
+
+    private static void appendJsonString(StringBuilder line, String value) {
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> line.append("\\\"");
+                case '\\' -> line.append("\\\\");
+                default -> {
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+
+    /**
+     * A reusable entry; published is written last so the writer sees complete fields
+     */
+    private static final class Slot {
+        long timestampMillis;
+        String method;
+        String path;
+        int status;
+        long latencyNanos;
+        String principal;
+        volatile long published = -1;
+    }
+}
@@ -0,0 +1,66 @@
+package com.nathan.secure_notes.security.custom;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Structured access log: method, path template, status, latency and principal per request
+ *
+ * Replaces CustomLoggingFilter. Nothing is formatted or written on the request thread; the
+ * entry is handed to the AccessLogBuffer and logged by its writer thread. The request body is
+ * never read, and the path is the matched route template (e.g. /api/notes/{noteId}) rather than
+ * the raw URI. Only sampleRate of successful requests are recorded; 5xx responses always are.
+ *
+ * Added to the security filter chain in SecurityConfig, where the authenticated principal is
+ * still available once the rest of the chain has run.
+ */
+public class AccessLogFilter extends OncePerRequestFilter {
+
+    private static final String UNMATCHED_PATH = "unmatched";
+
+    private final AccessLogBuffer accessLogBuffer;
+    private final double sampleRate;
+
+    public AccessLogFilter(AccessLogBuffer accessLogBuffer, double sampleRate) {
+        this.accessLogBuffer = accessLogBuffer;
+        this.sampleRate = sampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            int status = response.getStatus();
+            if (status >= 500 || sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate) {
+                accessLogBuffer.record(System.currentTimeMillis(), request.getMethod(), pathTemplate(request),
+                        status, System.nanoTime() - start, principal());
+            }
+        }
+    }
+
+    private static String pathTemplate(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : UNMATCHED_PATH;
+    }
+
+    private static String principal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
@@ -0,0 +1,83 @@
+package com.nathan.secure_notes.security.custom;
+
+import com.nathan.secure_notes.security.AuthTokenFilter;
+import com.nathan.secure_notes.security.JwtUtils;
+import com.nathan.secure_notes.security.VerifiedTokenCache;
+import com.nathan.secure_notes.util.HashUtils;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rejects requests over their policy's rate with 429 Too Many Requests and a Retry-After
+ *
+ * Runs ahead of AuthTokenFilter so rejected requests cost neither a signature check nor a
+ * password hash. Requests are keyed by username when they carry a bearer token that has
+ * already been verified (found in the VerifiedTokenCache), and by client IP otherwise; an
+ * unverified token is never trusted for its subject, so forging one cannot drain another
+ * user's bucket. The token digest computed here is handed to AuthTokenFilter.
+ *
+ * The client IP is request.getRemoteAddr(); behind a proxy set server.forward-headers-strategy
+ * so it is the real client rather than the proxy.
+ *
+ * @see RateLimiters
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String TOO_MANY_REQUESTS_BODY = "{\"message\":\"Too many requests\",\"success\":false}";
+
+    private final RateLimiters rateLimiters;
+    private final JwtUtils jwtUtils;
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    public RateLimitFilter(RateLimiters rateLimiters, JwtUtils jwtUtils, VerifiedTokenCache verifiedTokenCache) {
+        this.rateLimiters = rateLimiters;
+        this.jwtUtils = jwtUtils;
+        this.verifiedTokenCache = verifiedTokenCache;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        TokenBucketLimiter limiter = rateLimiters.forRequest(request);
+        if (limiter != null) {
+            long waitNanos = limiter.tryAcquire(clientKey(request, limiter));
+            if (waitNanos > 0) {
+                reject(response, waitNanos);
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private String clientKey(HttpServletRequest request, TokenBucketLimiter limiter) {
+        if (!rateLimiters.keyedByIp(limiter)) {
+            String jwt = jwtUtils.getJwtFromHeader(request);
+            if (jwt != null) {
+                String digest = HashUtils.sha256Hex(jwt);
+                request.setAttribute(AuthTokenFilter.TOKEN_DIGEST_ATTRIBUTE, digest);
+                String username = verifiedTokenCache.verifiedUsername(digest);
+                if (username != null) {
+                    return "user:" + username;
+                }
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private static void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write(TOO_MANY_REQUESTS_BODY);
+    }
+}
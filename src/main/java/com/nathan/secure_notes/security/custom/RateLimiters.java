@@ -0,0 +1,98 @@
+package com.nathan.secure_notes.security.custom;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * The rate limit policies and which requests each one applies to
+ *
+ * - availability: /api/auth/public/availability, keyed by client IP; looser than auth since the
+ *   signup form checks as the user types
+ * - session: /api/auth/public/refresh and /api/auth/public/signout, keyed by client IP; every
+ *   signed-in client refreshes its token routinely, so these must not spend the auth budget
+ * - auth: the rest of /api/auth/public/**, always keyed by client IP since nobody is signed in yet
+ * - noteWrites: POST, PUT, PATCH and DELETE under /api/notes/**
+ * - admin: /api/admin/** and actuator endpoints other than health
+ *
+ * Other requests are not limited. Each policy has its own capacity (burst) and per-minute
+ * refill under spring.app.rateLimit*; rejections and bucket counts are published as
+ * rate.limit.rejected and rate.limit.buckets tagged with the policy.
+ */
+@Component
+public class RateLimiters {
+
+    private final TokenBucketLimiter availability;
+    private final TokenBucketLimiter session;
+    private final TokenBucketLimiter auth;
+    private final TokenBucketLimiter noteWrites;
+    private final TokenBucketLimiter admin;
+
+    public RateLimiters(@Value("${spring.app.rateLimitAvailabilityCapacity:30}") int availabilityCapacity,
+                        @Value("${spring.app.rateLimitAvailabilityPerMinute:120}") int availabilityPerMinute,
+                        @Value("${spring.app.rateLimitSessionCapacity:30}") int sessionCapacity,
+                        @Value("${spring.app.rateLimitSessionPerMinute:60}") int sessionPerMinute,
+                        @Value("${spring.app.rateLimitAuthCapacity:10}") int authCapacity,
+                        @Value("${spring.app.rateLimitAuthPerMinute:10}") int authPerMinute,
+                        @Value("${spring.app.rateLimitNoteWritesCapacity:60}") int noteWritesCapacity,
+                        @Value("${spring.app.rateLimitNoteWritesPerMinute:120}") int noteWritesPerMinute,
+                        @Value("${spring.app.rateLimitAdminCapacity:30}") int adminCapacity,
+                        @Value("${spring.app.rateLimitAdminPerMinute:60}") int adminPerMinute,
+                        @Value("${spring.app.rateLimitMaxBuckets:100000}") int maxBuckets,
+                        MeterRegistry meterRegistry) {
+        this.availability = new TokenBucketLimiter("availability", availabilityCapacity, availabilityPerMinute, maxBuckets);
+        this.session = new TokenBucketLimiter("session", sessionCapacity, sessionPerMinute, maxBuckets);
+        this.auth = new TokenBucketLimiter("auth", authCapacity, authPerMinute, maxBuckets);
+        this.noteWrites = new TokenBucketLimiter("noteWrites", noteWritesCapacity, noteWritesPerMinute, maxBuckets);
+        this.admin = new TokenBucketLimiter("admin", adminCapacity, adminPerMinute, maxBuckets);
+
+        for (TokenBucketLimiter limiter : List.of(availability, session, auth, noteWrites, admin)) {
+            FunctionCounter.builder("rate.limit.rejected", limiter, TokenBucketLimiter::rejected)
+                    .tag("policy", limiter.name())
+                    .register(meterRegistry);
+            Gauge.builder("rate.limit.buckets", limiter, TokenBucketLimiter::size)
+                    .tag("policy", limiter.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * @return The policy that applies to the request, or null if it is not limited
+     */
+    public TokenBucketLimiter forRequest(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.equals("/api/auth/public/availability")) {
+            return availability;
+        }
+        if (path.equals("/api/auth/public/refresh") || path.equals("/api/auth/public/signout")) {
+            return session;
+        }
+        if (path.startsWith("/api/auth/public/")) {
+            return auth;
+        }
+        if (path.startsWith("/api/notes/") && isWrite(request.getMethod())) {
+            return noteWrites;
+        }
+        if (path.startsWith("/api/admin/") || (path.startsWith("/actuator/") && !path.startsWith("/actuator/health"))) {
+            return admin;
+        }
+        return null;
+    }
+
+    /**
+     * Only the public auth policies must ignore who the caller claims to be
+     */
+    public boolean keyedByIp(TokenBucketLimiter limiter) {
+        return limiter == auth || limiter == availability || limiter == session;
+    }
+
+    private static boolean isWrite(String method) {
+        return !(HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method) || HttpMethod.OPTIONS.matches(method));
+    }
+}
@@ -0,0 +1,107 @@
+package com.nathan.secure_notes.security.custom;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token buckets for one rate limit policy, one bucket per client key
+ *
+ * Each bucket is a single AtomicLong holding the time at which it will be full again
+ * (the generic cell rate algorithm, equivalent to a token bucket of the given capacity
+ * refilled at perMinute). Taking a token is one CAS, so requests for different keys never
+ * contend and requests for the same key never block each other.
+ *
+ * A full bucket carries no state worth keeping, so when the number of buckets reaches
+ * maxBuckets the full ones are dropped; if that is not enough, arbitrary buckets go until
+ * the policy is back under its limit. One caller sweeps while the others carry on.
+ */
+public class TokenBucketLimiter {
+
+    private final String name;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int maxBuckets;
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param name       Policy name, used in metrics
+     * @param capacity   Requests a client can make in a burst
+     * @param perMinute  Sustained requests per minute once the burst is used up
+     * @param maxBuckets Client keys tracked before idle buckets are dropped
+     */
+    public TokenBucketLimiter(String name, int capacity, int perMinute, int maxBuckets) {
+        this.name = name;
+        this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / perMinute;
+        this.burstNanos = intervalNanos * capacity;
+        this.maxBuckets = maxBuckets;
+    }
+
+    /**
+     * Takes a token from the client's bucket
+     *
+     * @param key The client, e.g. its username or IP address
+     * @return 0 if the request may proceed, otherwise the nanoseconds until a token is available
+     */
+    public long tryAcquire(String key) {
+        long now = System.nanoTime();
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxBuckets) {
+                evict(now);
+            }
+            AtomicLong created = new AtomicLong(now);
+            bucket = buckets.putIfAbsent(key, created);
+            if (bucket == null) {
+                bucket = created;
+            }
+        }
+        while (true) {
+            long fullAt = bucket.get();
+            long next = Math.max(fullAt, now) + intervalNanos;
+            long wait = next - now - burstNanos;
+            if (wait > 0) {
+                rejected.increment();
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private void evict(long now) {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            buckets.values().removeIf(fullAt -> fullAt.get() <= now);
+            Iterator<AtomicLong> iterator = buckets.values().iterator();
+            while (buckets.size() >= maxBuckets && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+}
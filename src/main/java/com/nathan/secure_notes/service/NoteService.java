@@ -1,8 +1,15 @@
 package com.nathan.secure_notes.service;
 
+import com.nathan.secure_notes.dto.requests.BulkNoteRequest;
+import com.nathan.secure_notes.dto.responses.BulkNoteResponse;
+import com.nathan.secure_notes.dto.responses.NotePageResponse;
+import com.nathan.secure_notes.dto.responses.NoteSearchResponse;
+import com.nathan.secure_notes.dto.responses.NoteSummary;
 import com.nathan.secure_notes.model.Notes;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 @Service
@@ -11,7 +18,21 @@ public interface NoteService {
 
     List<Notes> getAllNotesAUser(String username);
 
+    NotePageResponse<Notes> getNotesPageForUser(String username, Long cursor, Integer pageSize);
+
+    NotePageResponse<NoteSummary> getNoteSummariesForUser(String username, Long cursor, Integer pageSize);
+
+    Notes getNoteForUser(Long noteId, String username);
+
+    NoteSearchResponse searchNotesForUser(String username, String query, Integer page, Integer pageSize);
+
+    long rebuildSearchIndex();
+
+    void exportNotesForUser(String username, OutputStream out) throws IOException;
+
     Notes updateNoteForUser(Long noteId, Notes note, String username);
 
     void deleteNoteForUser(Long noteId, String username);
+
+    BulkNoteResponse applyBulkForUser(String username, List<BulkNoteRequest.Operation> operations);
 }
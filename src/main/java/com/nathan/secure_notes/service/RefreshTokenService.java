@@ -0,0 +1,32 @@
+package com.nathan.secure_notes.service;
+
+import com.nathan.secure_notes.service.impl.UserDetailsImpl;
+
+public interface RefreshTokenService {
+    /**
+     * Starts a new token family for a user who just signed in
+     *
+     * @return The opaque refresh token to hand to the client
+     */
+    String issue(UserDetailsImpl user);
+
+    /**
+     * Exchanges a refresh token for a new access token and the next refresh token of its family
+     *
+     * @throws com.nathan.secure_notes.exception.InvalidRefreshTokenException If the token cannot be used
+     */
+    RefreshedTokens refresh(String refreshToken);
+
+    /**
+     * Revokes the family of a refresh token, if it exists
+     */
+    void revoke(String refreshToken);
+
+    /**
+     * Revokes every refresh token of a user, after a change to the account's security state
+     */
+    void revokeAllForUser(String username);
+
+    record RefreshedTokens(UserDetailsImpl user, String accessToken, String refreshToken) {
+    }
+}
@@ -1,6 +1,8 @@
 package com.nathan.secure_notes.service;
 
 import com.nathan.secure_notes.dto.UserDTO;
+import com.nathan.secure_notes.dto.requests.AdminUserFilter;
+import com.nathan.secure_notes.dto.responses.AdminUserPageResponse;
 import com.nathan.secure_notes.model.Role;
 import com.nathan.secure_notes.model.User;
 import com.warrenstrange.googleauth.GoogleAuthenticatorKey;
@@ -11,7 +13,7 @@ import java.util.Optional;
 public interface UserService {
     void updateUserRole(Long userId, String roleName);
 
-    List<User> getAllUsers();
+    AdminUserPageResponse getUsersPage(AdminUserFilter filter, Integer page, Integer pageSize, String sort);
 
     UserDTO getUserById(Long id);
 
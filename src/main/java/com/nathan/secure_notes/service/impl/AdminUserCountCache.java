@@ -0,0 +1,42 @@
+package com.nathan.secure_notes.service.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nathan.secure_notes.dto.requests.AdminUserFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of user counts per admin listing filter
+ *
+ * Counting a few hundred thousand users is the expensive half of a listing page and
+ * the total barely moves while an admin pages through, so it is only recounted every
+ * spring.app.adminUserCountCacheSeconds per filter.
+ *
+ * A miss counts on the caller's thread and then stores the result, rather than using
+ * Caffeine's compute, which would hold a monitor for the length of the query.
+ */
+@Component
+public class AdminUserCountCache {
+
+    private final Cache<AdminUserFilter, Long> counts;
+
+    public AdminUserCountCache(@Value("${spring.app.adminUserCountCacheSeconds:30}") long ttlSeconds) {
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    public long get(AdminUserFilter filter, Supplier<Long> counter) {
+        Long count = counts.getIfPresent(filter);
+        if (count == null) {
+            count = counter.get();
+            counts.put(filter, count);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,103 @@
+package com.nathan.secure_notes.service.impl;
+
+import com.nathan.secure_notes.model.Notes;
+import com.nathan.secure_notes.repository.NoteRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fills in content_hash and contentLength for notes created before those columns existed
+ *
+ * Runs once the application is ready when spring.app.noteHashBackfill is enabled. Notes are
+ * processed in id order, spring.app.noteHashBackfillBatchSize at a time, each batch in its own
+ * transaction. Notes whose content duplicates another note of the same owner cannot take the real
+ * hash, since the (owner, hash) unique index cannot hold both; they get "dup:" + id instead, which
+ * can never equal a hex digest, so they are not picked up again on the next start. They are
+ * counted and logged.
+ */
+@Component
+@RequiredArgsConstructor
+public class NoteContentHashBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(NoteContentHashBackfill.class);
+
+    private final NoteRepository noteRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${spring.app.noteHashBackfill:true}")
+    private boolean enabled;
+
+    @Value("${spring.app.noteHashBackfillBatchSize:500}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            run();
+        }
+    }
+
+    public void run() {
+        long lastId = 0L;
+        long hashed = 0;
+        long duplicates = 0;
+        while (true) {
+            long afterId = lastId;
+            BatchResult result = transactionTemplate.execute(status -> backfillBatchAfter(afterId));
+            if (result == null || result.lastId() == null) {
+                break;
+            }
+            lastId = result.lastId();
+            hashed += result.hashed();
+            duplicates += result.duplicates();
+        }
+        if (hashed > 0 || duplicates > 0) {
+            logger.info("Backfilled content hash for {} notes, marked {} duplicate notes", hashed, duplicates);
+        }
+    }
+
+    private BatchResult backfillBatchAfter(long afterId) {
+        List<Notes> notes = noteRepository.findByContentHashIsNullAndIdGreaterThanOrderByIdAsc(afterId, Limit.of(batchSize));
+        if (notes.isEmpty()) {
+            return new BatchResult(null, 0, 0);
+        }
+        Set<String> seen = new HashSet<>();
+        int hashed = 0;
+        List<Notes> duplicates = new ArrayList<>();
+        for (Notes note : notes) {
+            String hash = Notes.hashContent(note.getContent());
+            if (!seen.add(note.getOwnerUserName() + ':' + hash)
+                    || noteRepository.existsByOwnerUserNameAndContentHash(note.getOwnerUserName(), hash)) {
+                duplicates.add(note);
+                continue;
+            }
+            note.setContentHash(hash);
+            note.setContentLength(contentLength(note));
+            hashed++;
+        }
+        noteRepository.flush();
+        for (Notes duplicate : duplicates) {
+            noteRepository.markContentHash(duplicate.getId(), "dup:" + duplicate.getId(), contentLength(duplicate));
+        }
+        return new BatchResult(notes.get(notes.size() - 1).getId(), hashed, duplicates.size());
+    }
+
+    private static int contentLength(Notes note) {
+        return note.getContent() == null ? 0 : note.getContent().length();
+    }
+
+    private record BatchResult(Long lastId, int hashed, int duplicates) {
+    }
+}
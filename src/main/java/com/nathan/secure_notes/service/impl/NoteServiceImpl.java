@@ -1,28 +1,91 @@
 package com.nathan.secure_notes.service.impl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.nathan.secure_notes.dto.requests.BulkNoteRequest;
+import com.nathan.secure_notes.dto.responses.BulkNoteResponse;
+import com.nathan.secure_notes.dto.responses.NotePageResponse;
+import com.nathan.secure_notes.dto.responses.NoteSearchResponse;
+import com.nathan.secure_notes.dto.responses.NoteSummary;
 import com.nathan.secure_notes.exception.APIException;
 import com.nathan.secure_notes.exception.ResourceNotFoundException;
 import com.nathan.secure_notes.model.Notes;
 import com.nathan.secure_notes.repository.NoteRepository;
+import com.nathan.secure_notes.search.NoteSearchIndex;
 import com.nathan.secure_notes.service.NoteService;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@Service
+@Timed("notes.service")
 @RequiredArgsConstructor
 public class NoteServiceImpl implements NoteService {
     private final NoteRepository noteRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final NoteSearchIndex noteSearchIndex;
+
+    @Value("${spring.app.notesPageSize:50}")
+    private int defaultPageSize;
+
+    @Value("${spring.app.notesMaxPageSize:500}")
+    private int maxPageSize;
+
+    @Value("${spring.app.notePreviewLength:200}")
+    private int previewLength;
+
+    /**
+     * How deep search may page: Lucene collects every hit up to the end of the requested page
+     */
+    @Value("${spring.app.searchMaxResults:10000}")
+    private int maxSearchResults;
+
+    @Value("${spring.app.notesBulkMaxOperations:1000}")
+    private int maxBulkOperations;
 
     @Override
     public Notes createNoteForUser(Notes note, String username) {
-        Notes content = this.noteRepository.findByContentAndOwnerUserName(note.getContent(), username);
-        if(content != null) {
+        note.setOwnerUserName(username);
+        if (noteRepository.existsByOwnerUserNameAndContentHash(username, Notes.hashContent(note.getContent()))) {
+            throw new APIException("Note already exists for this user");
+        }
+        Notes createdNote;
+        try {
+            createdNote = noteRepository.save(note);
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent create of the same content won the race on the unique index
             throw new APIException("Note already exists for this user");
         }
-        return noteRepository.save(note);
+        noteSearchIndex.index(createdNote);
+        return createdNote;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<Notes> getAllNotesAUser(String username) {
         List<Notes> notes = noteRepository.findByOwnerUserName(username);
         if(notes.isEmpty()) {
@@ -31,13 +94,225 @@ public class NoteServiceImpl implements NoteService {
         return notes;
     }
 
+    /**
+     * Seeks past the cursor instead of using an offset and fetches one extra row
+     * to find out whether another page follows without a count query
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public NotePageResponse<Notes> getNotesPageForUser(String username, Long cursor, Integer pageSize) {
+        int size = resolvePageSize(pageSize);
+        List<Notes> notes = noteRepository.findByOwnerUserNameAndIdGreaterThanOrderByIdAsc(
+                username, afterId(cursor), Limit.of(size + 1));
+        return toPage(notes, size, Notes::getId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public NotePageResponse<NoteSummary> getNoteSummariesForUser(String username, Long cursor, Integer pageSize) {
+        int size = resolvePageSize(pageSize);
+        List<NoteSummary> summaries = noteRepository.findSummaries(
+                username, afterId(cursor), Math.min(previewLength, NoteSummary.MAX_PREVIEW_LENGTH), Limit.of(size + 1));
+        return toPage(summaries, size, NoteSummary::getId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Notes getNoteForUser(Long noteId, String username) {
+        return noteRepository.findByIdAndOwnerUserName(noteId, username)
+                .orElseThrow(() -> new ResourceNotFoundException("Notes", "NotesId", noteId));
+    }
+
+    @Override
+    public NoteSearchResponse searchNotesForUser(String username, String query, Integer page, Integer pageSize) {
+        if (query == null || query.isBlank()) {
+            throw new APIException("Search query must not be empty");
+        }
+        int pageNumber = page == null ? 0 : page;
+        if (pageNumber < 0) {
+            throw new APIException("Page number must not be negative");
+        }
+        int size = resolvePageSize(pageSize);
+        if (((long) pageNumber + 1) * size > maxSearchResults) {
+            throw new APIException("Search results are limited to the first " + maxSearchResults + " hits");
+        }
+        try {
+            return noteSearchIndex.search(username, query, pageNumber, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public long rebuildSearchIndex() {
+        try {
+            return noteSearchIndex.rebuild();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int resolvePageSize(Integer pageSize) {
+        int size = pageSize == null ? defaultPageSize : pageSize;
+        if (size < 1 || size > maxPageSize) {
+            throw new APIException("Page size must be between 1 and " + maxPageSize);
+        }
+        return size;
+    }
+
+    private static long afterId(Long cursor) {
+        return cursor == null ? 0L : cursor;
+    }
+
+    /**
+     * Trims the extra row fetched beyond the page size and derives the next cursor from it
+     */
+    private static <T> NotePageResponse<T> toPage(List<T> rows, int size, Function<T, Long> idOf) {
+        boolean lastPage = rows.size() <= size;
+        List<T> page = lastPage ? rows : rows.subList(0, size);
+        Long nextCursor = lastPage ? null : idOf.apply(page.get(page.size() - 1));
+        return new NotePageResponse<>(page, size, nextCursor, lastPage);
+    }
+
+    /**
+     * Writes every note of the user to the stream as NDJSON, one note per line
+     *
+     * Notes are read through a forward-only stream and detached once written, so the
+     * persistence context never holds more than the note being exported and heap use
+     * does not depend on how many notes the user has.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportNotesForUser(String username, OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(Notes.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        try (Stream<Notes> notes = noteRepository.streamByOwnerUserName(username)) {
+            Iterator<Notes> iterator = notes.iterator();
+            while (iterator.hasNext()) {
+                Notes note = iterator.next();
+                writer.writeValue(out, note);
+                out.write('\n');
+                entityManager.detach(note);
+            }
+        }
+        out.flush();
+    }
+
     @Override
     public Notes updateNoteForUser(Long noteId, Notes note, String username) {
         Notes existingNote = this.noteRepository.findById(noteId)
                 .orElseThrow(() -> new ResourceNotFoundException("Notes", "NotesId", noteId));
         existingNote.setOwnerUserName(note.getOwnerUserName());
         existingNote.setContent(note.getContent());
-        return noteRepository.save(existingNote);
+        Notes updatedNote;
+        try {
+            updatedNote = noteRepository.save(existingNote);
+        } catch (DataIntegrityViolationException e) {
+            throw new APIException("Note already exists for this user");
+        }
+        noteSearchIndex.index(updatedNote);
+        return updatedNote;
+    }
+
+    /**
+     * Applies a batch of creates, updates and deletes in one transaction
+     *
+     * The notes referenced by the batch and the content hashes it would introduce are looked
+     * up with one query each. Rejected operations (missing content, unknown note, duplicate content) are reported
+     * in the result and do not abort the others. Writes are left to the flush at commit, where
+     * Hibernate sends them as JDBC batches; a flush is forced early only when an operation reuses
+     * content freed by an earlier one, so the unique (owner, hash) index never sees both at once.
+     */
+    @Override
+    @Transactional
+    public BulkNoteResponse applyBulkForUser(String username, List<BulkNoteRequest.Operation> operations) {
+        if (operations.size() > maxBulkOperations) {
+            throw new APIException("A bulk request may contain at most " + maxBulkOperations + " operations");
+        }
+
+        Set<Long> noteIds = operations.stream()
+                .map(BulkNoteRequest.Operation::getNoteId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Notes> notesById = new HashMap<>();
+        if (!noteIds.isEmpty()) {
+            noteRepository.findByOwnerUserNameAndIdIn(username, noteIds)
+                    .forEach(note -> notesById.put(note.getId(), note));
+        }
+        Set<String> contentHashes = operations.stream()
+                .filter(operation -> operation.getType() != BulkNoteRequest.OperationType.DELETE
+                        && operation.getContent() != null)
+                .map(operation -> Notes.hashContent(operation.getContent()))
+                .collect(Collectors.toSet());
+        Set<String> takenHashes = contentHashes.isEmpty()
+                ? new HashSet<>()
+                : new HashSet<>(noteRepository.findExistingContentHashes(username, contentHashes));
+        Set<String> freedHashes = new HashSet<>();
+
+        List<BulkNoteResponse.Result> results = new ArrayList<>(operations.size());
+        List<Notes> changedNotes = new ArrayList<>();
+        List<Long> deletedNoteIds = new ArrayList<>();
+        for (int i = 0; i < operations.size(); i++) {
+            BulkNoteRequest.Operation operation = operations.get(i);
+            BulkNoteRequest.OperationType type = operation.getType();
+            if (type != BulkNoteRequest.OperationType.DELETE && operation.getContent() == null) {
+                results.add(new BulkNoteResponse.Result(i, type, operation.getNoteId(), false,
+                        "Content is required"));
+                continue;
+            }
+            Notes note = operation.getNoteId() == null ? null : notesById.get(operation.getNoteId());
+            if (type != BulkNoteRequest.OperationType.CREATE && note == null) {
+                results.add(new BulkNoteResponse.Result(i, type, operation.getNoteId(), false, "Note not found"));
+                continue;
+            }
+
+            if (type == BulkNoteRequest.OperationType.DELETE) {
+                noteRepository.delete(note);
+                notesById.remove(note.getId());
+                releaseHash(note.getContentHash(), takenHashes, freedHashes);
+                deletedNoteIds.add(note.getId());
+                results.add(new BulkNoteResponse.Result(i, type, note.getId(), true, null));
+                continue;
+            }
+
+            String hash = Notes.hashContent(operation.getContent());
+            boolean unchanged = note != null && hash.equals(note.getContentHash());
+            if (!unchanged && takenHashes.contains(hash)) {
+                results.add(new BulkNoteResponse.Result(i, type, operation.getNoteId(), false,
+                        "Note already exists for this user"));
+                continue;
+            }
+            if (freedHashes.remove(hash)) {
+                entityManager.flush();
+                freedHashes.clear();
+            }
+            if (type == BulkNoteRequest.OperationType.CREATE) {
+                note = noteRepository.save(new Notes(operation.getContent(), username));
+            } else if (!unchanged) {
+                releaseHash(note.getContentHash(), takenHashes, freedHashes);
+                note.setContent(operation.getContent());
+            }
+            takenHashes.add(hash);
+            changedNotes.add(note);
+            results.add(new BulkNoteResponse.Result(i, type, note.getId(), true, null));
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                changedNotes.forEach(noteSearchIndex::index);
+                deletedNoteIds.forEach(noteSearchIndex::remove);
+            }
+        });
+
+        int succeeded = (int) results.stream().filter(BulkNoteResponse.Result::success).count();
+        return new BulkNoteResponse(results, succeeded, results.size() - succeeded);
+    }
+
+    private static void releaseHash(String hash, Set<String> takenHashes, Set<String> freedHashes) {
+        if (hash != null && takenHashes.remove(hash)) {
+            freedHashes.add(hash);
+        }
     }
 
     @Override
@@ -45,5 +320,6 @@ public class NoteServiceImpl implements NoteService {
         Notes existingNote = this.noteRepository.findById(noteId)
                 .orElseThrow(() -> new ResourceNotFoundException("Notes", "NotesId", noteId));
         noteRepository.delete(existingNote);
+        noteSearchIndex.remove(noteId);
     }
 }
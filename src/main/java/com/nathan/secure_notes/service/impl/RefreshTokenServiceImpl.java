@@ -0,0 +1,119 @@
+package com.nathan.secure_notes.service.impl;
+
+import com.nathan.secure_notes.exception.InvalidRefreshTokenException;
+import com.nathan.secure_notes.model.RefreshToken;
+import com.nathan.secure_notes.repository.RefreshTokenRepository;
+import com.nathan.secure_notes.security.JwtUtils;
+import com.nathan.secure_notes.service.RefreshTokenService;
+import com.nathan.secure_notes.util.HashUtils;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque, rotating refresh tokens backing short-lived access tokens
+ *
+ * A refresh is a lookup by the unique token_hash index, a conditional update of that row and
+ * the insert of its successor, so refreshing every few minutes costs a few single-row statements
+ * and never a password check. The user comes from the UserDetailsCache.
+ *
+ * Presenting a token that was already used revokes its whole family, on the assumption that it
+ * was copied. So does a change to the user's security version since the family was started;
+ * UserServiceImpl also revokes all of a user's tokens eagerly when that happens.
+ * Rows are deleted every spring.app.refreshTokenPruneIntervalMs once they have expired.
+ */
+@Service
+@RequiredArgsConstructor
+public class RefreshTokenServiceImpl implements RefreshTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenServiceImpl.class);
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserDetailsServiceImpl userDetailsService;
+    private final JwtUtils jwtUtils;
+
+    @Value("${spring.app.refreshTokenExpirationMs:1209600000}")
+    private long refreshTokenExpirationMs;
+
+    @Override
+    public String issue(UserDetailsImpl user) {
+        return issueInFamily(UUID.randomUUID().toString(), user.getUsername(), user.getSecurityVersion());
+    }
+
+    /**
+     * Not rolled back on InvalidRefreshTokenException, so a family revoked on reuse stays revoked
+     */
+    @Override
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    public RefreshedTokens refresh(String refreshToken) {
+        RefreshToken token = refreshTokenRepository.findByTokenHash(HashUtils.sha256Hex(refreshToken))
+                .orElseThrow(() -> new InvalidRefreshTokenException("Refresh token is not valid"));
+        if (token.isRevoked()) {
+            throw new InvalidRefreshTokenException("Refresh token has been revoked");
+        }
+        Instant now = Instant.now();
+        if (token.getUsedAt() != null || refreshTokenRepository.markUsed(token.getId(), now) == 0) {
+            logger.warn("Refresh token reused for user {}, revoking family {}", token.getUserName(), token.getFamilyId());
+            refreshTokenRepository.revokeFamily(token.getFamilyId());
+            throw new InvalidRefreshTokenException("Refresh token has already been used");
+        }
+        if (token.getExpiresAt().isBefore(now)) {
+            throw new InvalidRefreshTokenException("Refresh token has expired");
+        }
+
+        UserDetailsImpl user;
+        try {
+            user = (UserDetailsImpl) userDetailsService.loadUserByUsername(token.getUserName());
+        } catch (UsernameNotFoundException e) {
+            refreshTokenRepository.revokeFamily(token.getFamilyId());
+            throw new InvalidRefreshTokenException("Refresh token is not valid");
+        }
+        if (!user.isAccountNonLocked() || user.getSecurityVersion() != token.getSecurityVersion()) {
+            refreshTokenRepository.revokeFamily(token.getFamilyId());
+            throw new InvalidRefreshTokenException("Account has changed, please sign in again");
+        }
+
+        String next = issueInFamily(token.getFamilyId(), token.getUserName(), token.getSecurityVersion());
+        return new RefreshedTokens(user, jwtUtils.generateTokenFromUsername(user), next);
+    }
+
+    @Override
+    public void revoke(String refreshToken) {
+        refreshTokenRepository.findByTokenHash(HashUtils.sha256Hex(refreshToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId()));
+    }
+
+    @Override
+    public void revokeAllForUser(String username) {
+        refreshTokenRepository.revokeAllForUser(username);
+    }
+
+    @Scheduled(fixedDelayString = "${spring.app.refreshTokenPruneIntervalMs:3600000}")
+    public void pruneExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(Instant.now());
+        if (deleted > 0) {
+            logger.debug("Deleted {} expired refresh tokens", deleted);
+        }
+    }
+
+    private String issueInFamily(String familyId, String userName, int securityVersion) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String value = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.save(new RefreshToken(HashUtils.sha256Hex(value), familyId, userName, securityVersion,
+                Instant.now().plusMillis(refreshTokenExpirationMs)));
+        return value;
+    }
+}
@@ -0,0 +1,157 @@
+package com.nathan.secure_notes.service.impl;
+
+import com.nathan.secure_notes.repository.UserRepository;
+import com.nathan.secure_notes.repository.UserRepository.UserIdentity;
+import com.nathan.secure_notes.util.BloomFilter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Answers whether a username or email is free without querying the database in the common case
+ *
+ * Taken usernames and emails are kept in a BloomFilter sized for spring.app.signupFilterExpectedUsers
+ * at spring.app.signupFilterFalsePositiveRate. A value the filter has never seen is definitely free;
+ * only possible hits fall back to a single query for both values. Values are lowercased, so the
+ * filter errs on the side of a query whichever collation the database uses.
+ *
+ * The filter is warmed by streaming every user once the application is ready and is fed by each
+ * registration afterwards. Until warm-up finishes every check goes to the database. Users created
+ * or changed on other instances are picked up every spring.app.signupFilterSyncMs from the
+ * updated_at index, looking back an extra overlap for slow commits and clock skew, so a value
+ * taken elsewhere can be reported free for at most about that long. The unique constraints on
+ * users remain the final guard and AuthController reports a violation as a taken username or email.
+ *
+ * Checks are published as signup.availability.checks tagged result=filtered|queried.
+ */
+@Component
+public class SignupAvailabilityIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(SignupAvailabilityIndex.class);
+
+    /**
+     * How far back each sync looks again, to cover slow commits and clock skew between instances
+     */
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(30);
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BloomFilter taken;
+    private final LongAdder filtered = new LongAdder();
+    private final LongAdder queried = new LongAdder();
+    private volatile boolean ready;
+    private volatile LocalDateTime lastSync;
+
+    public SignupAvailabilityIndex(UserRepository userRepository,
+                                   TransactionTemplate transactionTemplate,
+                                   @Value("${spring.app.signupFilterExpectedUsers:1000000}") long expectedUsers,
+                                   @Value("${spring.app.signupFilterFalsePositiveRate:0.01}") double falsePositiveRate,
+                                   MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.taken = new BloomFilter(expectedUsers * 2, falsePositiveRate);
+
+        FunctionCounter.builder("signup.availability.checks", filtered, LongAdder::sum)
+                .tag("result", "filtered")
+                .register(meterRegistry);
+        FunctionCounter.builder("signup.availability.checks", queried, LongAdder::sum)
+                .tag("result", "queried")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        lastSync = LocalDateTime.now();
+        Long users = transactionTemplate.execute(status -> {
+            long count = 0;
+            try (Stream<UserIdentity> identities = userRepository.streamIdentities()) {
+                Iterator<UserIdentity> iterator = identities.iterator();
+                while (iterator.hasNext()) {
+                    UserIdentity identity = iterator.next();
+                    add(identity.getUserName(), identity.getEmail());
+                    count++;
+                }
+            }
+            return count;
+        });
+        ready = true;
+        logger.info("Signup availability filter warmed with {} users ({} bits, {} hashes)",
+                users, taken.bitCount(), taken.hashCount());
+    }
+
+    /**
+     * Adds users created or changed by other instances since the last sync
+     */
+    @Scheduled(fixedDelayString = "${spring.app.signupFilterSyncMs:5000}")
+    public void sync() {
+        if (!ready) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (UserIdentity identity : userRepository.findIdentitiesUpdatedSince(lastSync.minus(SYNC_OVERLAP))) {
+            add(identity.getUserName(), identity.getEmail());
+        }
+        lastSync = now;
+    }
+
+    /**
+     * Records a username and email as taken; call after a user is saved
+     */
+    public void add(String username, String email) {
+        if (username != null) {
+            taken.put(usernameKey(username));
+        }
+        if (email != null) {
+            taken.put(emailKey(email));
+        }
+    }
+
+    /**
+     * Checks a username, an email or both; a null argument is not checked and reported as null
+     *
+     * @return Whether each value is free to register
+     */
+    public Availability check(String username, String email) {
+        boolean usernameMaybeTaken = username != null && (!ready || taken.mightContain(usernameKey(username)));
+        boolean emailMaybeTaken = email != null && (!ready || taken.mightContain(emailKey(email)));
+        if (!usernameMaybeTaken && !emailMaybeTaken) {
+            filtered.increment();
+            return new Availability(username == null ? null : true, email == null ? null : true);
+        }
+
+        queried.increment();
+        List<UserIdentity> holders = userRepository.findIdentitiesByUserNameOrEmail(
+                usernameMaybeTaken ? username : null, emailMaybeTaken ? email : null);
+        boolean usernameTaken = usernameMaybeTaken
+                && holders.stream().anyMatch(holder -> username.equalsIgnoreCase(holder.getUserName()));
+        boolean emailTaken = emailMaybeTaken
+                && holders.stream().anyMatch(holder -> email.equalsIgnoreCase(holder.getEmail()));
+        return new Availability(username == null ? null : !usernameTaken, email == null ? null : !emailTaken);
+    }
+
+    private static String usernameKey(String username) {
+        return "u:" + username.toLowerCase(Locale.ROOT);
+    }
+
+    private static String emailKey(String email) {
+        return "e:" + email.toLowerCase(Locale.ROOT);
+    }
+
+    public record Availability(Boolean usernameAvailable, Boolean emailAvailable) {
+    }
+}
@@ -30,39 +30,37 @@ public class UserDetailsImpl implements UserDetails {
 
     private boolean is2faEnabled;
 
+    private int securityVersion;
+
+    private boolean accountNonLocked = true;
+
     private Collection<? extends GrantedAuthority> authorities;
 
-    public UserDetailsImpl(Long userId, String username, String email, String password, boolean is2faEnabled, Collection<? extends GrantedAuthority> authorities) {
+    public UserDetailsImpl(Long userId, String username, String email, String password, boolean is2faEnabled,
+                           int securityVersion, Collection<? extends GrantedAuthority> authorities) {
         this.userId = userId;
         this.username = username;
         this.email = email;
         this.password = password;
         this.is2faEnabled = is2faEnabled;
+        this.securityVersion = securityVersion;
         this.authorities = authorities;
     }
 
-    public static UserDetailsImpl build(User user) {
-        GrantedAuthority grantedAuthority = new SimpleGrantedAuthority(user.getRole().getUsers().getRoleName());
-        return new UserDetailsImpl(
-                user.getUserId(),
-                user.getUserName(),
-                user.getEmail(),
-                user.getPassword(),
-                user.isTwoFactorEnabled(),
-                List.of(grantedAuthority));
-    }
-
     public static UserDetailsImpl build(User user) {
         GrantedAuthority authority = new SimpleGrantedAuthority(user.getRole().getRoleName().name());
 
-        return new UserDetailsImpl(
+        UserDetailsImpl details = new UserDetailsImpl(
                 user.getUserId(),
                 user.getUserName(),
                 user.getEmail(),
                 user.getPassword(),
                 user.isTwoFactorEnabled(),
+                user.getSecurityVersion(),
                 List.of(authority) // Wrapping the single authority in a list
         );
+        details.accountNonLocked = user.isAccountNonLocked();
+        return details;
     }
 
 
@@ -72,7 +70,7 @@ public class UserDetailsImpl implements UserDetails {
     }
 
     public Long getId() {
-        return id;
+        return userId;
     }
 
     @Override
@@ -92,7 +90,7 @@ public class UserDetailsImpl implements UserDetails {
 
     @Override
     public boolean isAccountNonLocked() {
-        return true;
+        return accountNonLocked;
     }
 
     @Override
@@ -116,6 +114,6 @@ public class UserDetailsImpl implements UserDetails {
         if (o == null || getClass() != o.getClass())
             return false;
         UserDetailsImpl user = (UserDetailsImpl) o;
-        return Objects.equals(id, user.id);
+        return Objects.equals(userId, user.userId);
     }
 }
@@ -1,25 +1,98 @@
 package com.nathan.secure_notes.service.impl;
 
+import com.nathan.secure_notes.config.ReplicaRoutingDataSource;
 import com.nathan.secure_notes.model.User;
 import com.nathan.secure_notes.repository.UserRepository;
-import lombok.RequiredArgsConstructor;
+import com.nathan.secure_notes.security.UserDetailsCache;
+import com.nathan.secure_notes.security.UserSecurityVersions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-@RequiredArgsConstructor
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
+    private static final Logger logger = LoggerFactory.getLogger(UserDetailsServiceImpl.class);
+
     private final UserRepository userRepository;
+    private final UserSecurityVersions userSecurityVersions;
+    private final UserDetailsCache userDetailsCache;
+    private final TaskExecutor applicationTaskExecutor;
+
+    /**
+     * The executor is qualified because @EnableScheduling registers a taskScheduler TaskExecutor
+     * next to Boot's applicationTaskExecutor
+     */
+    public UserDetailsServiceImpl(UserRepository userRepository,
+                                  UserSecurityVersions userSecurityVersions,
+                                  UserDetailsCache userDetailsCache,
+                                  @Qualifier("applicationTaskExecutor") TaskExecutor applicationTaskExecutor) {
+        this.userRepository = userRepository;
+        this.userSecurityVersions = userSecurityVersions;
+        this.userDetailsCache = userDetailsCache;
+        this.applicationTaskExecutor = applicationTaskExecutor;
+    }
 
+    /**
+     * Served from the UserDetailsCache; the database is only queried on a miss.
+     * Not @Transactional so that cache hits do not open a transaction; the role is
+     * fetched eagerly by findByUsername, so nothing is loaded lazily afterwards.
+     */
     @Override
-    @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
+        return userDetailsCache.get(username, this::loadFromDatabase);
+    }
+
+    /**
+     * Always read from the primary: a replica lagging behind a lock or role change would
+     * otherwise put the stale account back into the cache
+     */
+    private UserDetails loadFromDatabase(String username) {
+        User user = ReplicaRoutingDataSource.onPrimary(() -> userRepository.findByUsername(username))
                 .orElseThrow(() -> new UsernameNotFoundException("User Not Found with username: " + username));
 
+        userSecurityVersions.record(user.getUserName(), user.getSecurityVersion());
         return UserDetailsImpl.build(user);
     }
+
+    /**
+     * Called by the DaoAuthenticationProvider after a successful login whose stored hash uses an
+     * outdated algorithm or parameters, with the password already re-encoded by the current one
+     *
+     * The login carries on with the new hash straight away while the database write happens in
+     * the background; the write only applies if the stored hash is still the one that was checked.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        String username = user.getUsername();
+        String oldPassword = user.getPassword();
+        applicationTaskExecutor.execute(() -> {
+            try {
+                if (userRepository.updatePasswordIfUnchanged(username, oldPassword, newPassword) > 0) {
+                    userDetailsCache.evict(username);
+                    logger.debug("Upgraded password hash for user {}", username);
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Failed to upgrade password hash for user {}", username, e);
+            }
+        });
+
+        UserDetailsImpl userDetails = (UserDetailsImpl) user;
+        UserDetailsImpl updated = new UserDetailsImpl(
+                userDetails.getId(),
+                userDetails.getUsername(),
+                userDetails.getEmail(),
+                newPassword,
+                userDetails.is2faEnabled(),
+                userDetails.getSecurityVersion(),
+                userDetails.getAuthorities());
+        // The only account status that is not constant; a rehash must not unlock the account
+        updated.setAccountNonLocked(userDetails.isAccountNonLocked());
+        return updated;
+    }
 }
@@ -1,6 +1,11 @@
 package com.nathan.secure_notes.service.impl;
 
 import com.nathan.secure_notes.dto.UserDTO;
+import com.nathan.secure_notes.dto.requests.AdminUserFilter;
+import com.nathan.secure_notes.dto.responses.AdminUserPageResponse;
+import com.nathan.secure_notes.dto.responses.AdminUserSummary;
+import com.nathan.secure_notes.exception.APIException;
+import com.nathan.secure_notes.exception.PasswordHashingRejectedException;
 import com.nathan.secure_notes.model.AppRole;
 import com.nathan.secure_notes.model.PasswordResetToken;
 import com.nathan.secure_notes.model.Role;
@@ -8,18 +13,28 @@ import com.nathan.secure_notes.model.User;
 import com.nathan.secure_notes.repository.PasswordResetTokenRepository;
 import com.nathan.secure_notes.repository.RoleRepository;
 import com.nathan.secure_notes.repository.UserRepository;
+import com.nathan.secure_notes.security.LoginAttemptTracker;
+import com.nathan.secure_notes.security.TokenRevocationList;
+import com.nathan.secure_notes.security.UserDetailsCache;
+import com.nathan.secure_notes.security.UserSecurityVersions;
+import com.nathan.secure_notes.security.VerifiedTokenCache;
+import com.nathan.secure_notes.service.RefreshTokenService;
 import com.nathan.secure_notes.service.TotpService;
 import com.nathan.secure_notes.service.UserService;
 import com.nathan.secure_notes.util.EmailService;
 import com.warrenstrange.googleauth.GoogleAuthenticatorKey;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -36,6 +51,29 @@ public class UserServiceImpl implements UserService {
     private final PasswordResetTokenRepository passwordResetTokenRepository;
     private final EmailService emailService;
     private final TotpService totpService;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final UserSecurityVersions userSecurityVersions;
+    private final UserDetailsCache userDetailsCache;
+    private final AdminUserCountCache adminUserCountCache;
+    private final LoginAttemptTracker loginAttemptTracker;
+    private final SignupAvailabilityIndex signupAvailabilityIndex;
+    private final TokenRevocationList tokenRevocationList;
+    private final RefreshTokenService refreshTokenService;
+
+    /**
+     * Sort keys accepted by the admin listing, mapped to User properties
+     */
+    private static final Map<String, String> ADMIN_USER_SORTS = Map.of(
+            "userId", "userId",
+            "username", "userName",
+            "email", "email",
+            "createdAt", "createdAt");
+
+    @Value("${spring.app.adminUsersPageSize:50}")
+    private int defaultAdminPageSize;
+
+    @Value("${spring.app.adminUsersMaxPageSize:500}")
+    private int maxAdminPageSize;
 
     @Override
     public void updateUserRole(Long userId, String roleName) {
@@ -45,12 +83,53 @@ public class UserServiceImpl implements UserService {
         Role role = roleRepository.findByRoleName(appRole)
                 .orElseThrow(() -> new RuntimeException("Role not found"));
         user.setRole(role);
-        userRepository.save(user);
+        saveSecurityChange(user);
     }
 
+    /**
+     * Reads one page of DTOs straight from a projection query; the total comes from
+     * the AdminUserCountCache instead of a count query per page
+     */
     @Override
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    @Transactional(readOnly = true)
+    public AdminUserPageResponse getUsersPage(AdminUserFilter filter, Integer page, Integer pageSize, String sort) {
+        int size = pageSize == null ? defaultAdminPageSize : pageSize;
+        if (size < 1 || size > maxAdminPageSize) {
+            throw new APIException("Page size must be between 1 and " + maxAdminPageSize);
+        }
+        int pageNumber = page == null ? 0 : page;
+        if (pageNumber < 0) {
+            throw new APIException("Page number must not be negative");
+        }
+
+        List<AdminUserSummary> users = userRepository.findAdminUserSummaries(
+                filter.role(), filter.locked(), filter.enabled(), filter.accountExpired(),
+                filter.credentialsExpired(), filter.signUpMethod(),
+                PageRequest.of(pageNumber, size, resolveAdminUserSort(sort)));
+        long total = adminUserCountCache.get(filter, () -> userRepository.countAdminUsers(
+                filter.role(), filter.locked(), filter.enabled(), filter.accountExpired(),
+                filter.credentialsExpired(), filter.signUpMethod()));
+        int totalPages = (int) ((total + size - 1) / size);
+        return new AdminUserPageResponse(users, pageNumber, size, total, totalPages, pageNumber + 1 >= totalPages);
+    }
+
+    /**
+     * @param sort "field" or "field,asc|desc" with field one of ADMIN_USER_SORTS; defaults to userId
+     */
+    private static Sort resolveAdminUserSort(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return Sort.by("userId");
+        }
+        String[] parts = sort.split(",");
+        String property = ADMIN_USER_SORTS.get(parts[0].trim());
+        if (property == null) {
+            throw new APIException("Cannot sort users by " + parts[0].trim());
+        }
+        Sort.Direction direction = parts.length > 1
+                ? Sort.Direction.fromOptionalString(parts[1].trim()).orElse(Sort.Direction.ASC)
+                : Sort.Direction.ASC;
+        // userId as a tie breaker keeps pages stable when the sort key has duplicates
+        return Sort.by(direction, property).and(Sort.by("userId"));
     }
 
 
@@ -93,7 +172,10 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(userId).orElseThrow(()
                 -> new RuntimeException("User not found"));
         user.setAccountNonLocked(!lock);
-        userRepository.save(user);
+        saveSecurityChange(user);
+        if (!lock) {
+            loginAttemptTracker.reset(user.getUserName());
+        }
     }
 
 
@@ -107,7 +189,7 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(userId).orElseThrow(()
                 -> new RuntimeException("User not found"));
         user.setAccountNonExpired(!expire);
-        userRepository.save(user);
+        saveSecurityChange(user);
     }
 
     @Override
@@ -115,7 +197,7 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(userId).orElseThrow(()
                 -> new RuntimeException("User not found"));
         user.setEnabled(enabled);
-        userRepository.save(user);
+        saveSecurityChange(user);
     }
 
     @Override
@@ -123,7 +205,7 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(userId).orElseThrow(()
                 -> new RuntimeException("User not found"));
         user.setCredentialsNonExpired(!expire);
-        userRepository.save(user);
+        saveSecurityChange(user);
     }
 
 
@@ -133,7 +215,9 @@ public class UserServiceImpl implements UserService {
             User user = userRepository.findById(userId)
                     .orElseThrow(() -> new RuntimeException("User not found"));
             user.setPassword(passwordEncoder.encode(password));
-            userRepository.save(user);
+            saveSecurityChange(user);
+        } catch (PasswordHashingRejectedException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("Failed to update password");
         }
@@ -168,7 +252,7 @@ public class UserServiceImpl implements UserService {
 
         User user = resetToken.getUser();
         user.setPassword(passwordEncoder.encode(newPassword));
-        userRepository.save(user);
+        saveSecurityChange(user);
 
         resetToken.setUsed(true);
         passwordResetTokenRepository.save(resetToken);
@@ -183,7 +267,9 @@ public class UserServiceImpl implements UserService {
     public User registerUser(User user){
         if (user.getPassword() != null)
             user.setPassword(passwordEncoder.encode(user.getPassword()));
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        signupAvailabilityIndex.add(saved.getUserName(), saved.getEmail());
+        return saved;
     }
 
     @Override
@@ -209,6 +295,8 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         user.setTwoFactorEnabled(true);
         userRepository.save(user);
+        userDetailsCache.evict(user.getUserName());
+        verifiedTokenCache.invalidateUser(user.getUserName());
     }
 
     @Override
@@ -217,7 +305,24 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
         user.setTwoFactorEnabled(false);
         userRepository.save(user);
+        userDetailsCache.evict(user.getUserName());
+        verifiedTokenCache.invalidateUser(user.getUserName());
     }
 
-
-}
\ No newline at end of file
+    /**
+     * Saves a change to the user's role, lock, enabled, expiry or password state
+     * Bumps the security version so existing tokens are no longer trusted on their own claims,
+     * drops the user and any verified tokens cached for them, and revokes every access token
+     * issued so far on all instances through the TokenRevocationList, along with every refresh
+     * token, so none of them can mint new access tokens
+     */
+    private void saveSecurityChange(User user) {
+        user.setSecurityVersion(user.getSecurityVersion() + 1);
+        userRepository.save(user);
+        userSecurityVersions.record(user.getUserName(), user.getSecurityVersion());
+        userDetailsCache.evict(user.getUserName());
+        verifiedTokenCache.invalidateUser(user.getUserName());
+        tokenRevocationList.revokeAllForUser(user.getUserName());
+        refreshTokenService.revokeAllForUser(user.getUserName());
+    }
+}
@@ -0,0 +1,2 @@
+insert into roles (role_name) values ('ROLE_USER');
+insert into roles (role_name) values ('ROLE_ADMIN');
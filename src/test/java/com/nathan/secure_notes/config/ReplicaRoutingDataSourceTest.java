@@ -0,0 +1,110 @@
+package com.nathan.secure_notes.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routes against two independent in-memory H2 databases, each holding a row naming itself
+ */
+class ReplicaRoutingDataSourceTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate writeTransaction;
+    private TransactionTemplate readOnlyTransaction;
+
+    @BeforeEach
+    void setUp() {
+        DataSource routing = new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(
+                database("primary"), database("replica"), Duration.ofMinutes(1)));
+        jdbcTemplate = new JdbcTemplate(routing);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+        writeTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToReplica() {
+        authenticate("alice");
+        String database = readOnlyTransaction.execute(status -> databaseName());
+        assertThat(database).isEqualTo("replica");
+    }
+
+    @Test
+    void writesAndNonTransactionalReadsGoToPrimary() {
+        authenticate("alice");
+        String written = writeTransaction.execute(status -> databaseName());
+        assertThat(written).isEqualTo("primary");
+        String read = databaseName();
+        assertThat(read).isEqualTo("primary");
+    }
+
+    @Test
+    void userReadsTheirOwnWritesFromPrimary() {
+        authenticate("alice");
+        writeTransaction.execute(status -> databaseName());
+        String aliceReads = readOnlyTransaction.execute(status -> databaseName());
+        assertThat(aliceReads).isEqualTo("primary");
+
+        authenticate("bob");
+        String bobReads = readOnlyTransaction.execute(status -> databaseName());
+        assertThat(bobReads).isEqualTo("replica");
+    }
+
+    @Test
+    void rolledBackWritesDoNotPinReadsToPrimary() {
+        authenticate("alice");
+        writeTransaction.execute(status -> {
+            databaseName();
+            status.setRollbackOnly();
+            return null;
+        });
+        String aliceReads = readOnlyTransaction.execute(status -> databaseName());
+        assertThat(aliceReads).isEqualTo("replica");
+    }
+
+    @Test
+    void onPrimaryOverridesReadOnlyRouting() {
+        String database = ReplicaRoutingDataSource.onPrimary(
+                () -> readOnlyTransaction.execute(status -> databaseName()));
+        assertThat(database).isEqualTo("primary");
+    }
+
+    private String databaseName() {
+        return jdbcTemplate.queryForObject("select name from marker", String.class);
+    }
+
+    private static void authenticate(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate setup = new JdbcTemplate(dataSource);
+        setup.execute("create table if not exists marker (name varchar(16))");
+        setup.update("delete from marker");
+        setup.update("insert into marker (name) values (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,107 @@
+package com.nathan.secure_notes.search;
+
+import com.nathan.secure_notes.model.Notes;
+import com.nathan.secure_notes.repository.NoteRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Notes are committed before indexing, as the indexer reads them on its own connection
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NoteSearchIndexTest {
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Path indexDir;
+    private NoteSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        indexDir = Files.createTempDirectory("notes-index");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (searchIndex != null) {
+            searchIndex.close();
+        }
+        noteRepository.deleteAll();
+    }
+
+    @Test
+    void overflowingTheQueueRebuildsFromTheDatabase() throws Exception {
+        List<Notes> notes = noteRepository.saveAll(List.of(
+                new Notes("apples and pears", "alice"),
+                new Notes("apples and plums", "alice"),
+                new Notes("apples and figs", "alice")));
+
+        // Queued before the indexer starts, so every change after the first overflows
+        searchIndex = newIndex(1);
+        notes.forEach(searchIndex::index);
+        searchIndex.open();
+
+        assertThat(awaitHits("alice", "apples", 3)).isEqualTo(3);
+    }
+
+    @Test
+    void changesAfterRebuildReplaceRebuiltDocuments() throws Exception {
+        Notes note = noteRepository.save(new Notes("original words", "alice"));
+        searchIndex = newIndex(100);
+        searchIndex.open();
+        searchIndex.index(note);
+        assertThat(awaitHits("alice", "original", 1)).isEqualTo(1);
+
+        searchIndex.rebuild();
+        note.setContent("edited words");
+        searchIndex.index(noteRepository.save(note));
+
+        assertThat(awaitHits("alice", "edited", 1)).isEqualTo(1);
+        assertThat(searchIndex.search("alice", "words", 0, 10).getTotalHits()).isEqualTo(1);
+        assertThat(searchIndex.search("alice", "original", 0, 10).getTotalHits()).isZero();
+    }
+
+    private NoteSearchIndex newIndex(int queueCapacity) {
+        return new NoteSearchIndex(noteRepository, entityManager, new TransactionTemplate(transactionManager),
+                indexDir.toString(), 500, queueCapacity);
+    }
+
+    private long awaitHits(String owner, String query, long expected) throws Exception {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        long hits;
+        do {
+            hits = searchIndex.search(owner, query, 0, 10).getTotalHits();
+            if (hits >= expected) {
+                return hits;
+            }
+            Thread.sleep(50);
+        } while (System.nanoTime() < deadline);
+        return hits;
+    }
+}
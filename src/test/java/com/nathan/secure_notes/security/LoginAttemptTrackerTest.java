@@ -0,0 +1,95 @@
+package com.nathan.secure_notes.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoginAttemptTrackerTest {
+
+    private static final String IP = "203.0.113.7";
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void retryingAfterEachBackoffReachesThePermanentLock() {
+        LoginAttemptTracker tracker = tracker(900, 86400);
+
+        for (int failure = 1; failure <= 20; failure++) {
+            long blockedFor = tracker.tryBegin("alice", IP);
+            assertThat(blockedFor > 0).isEqualTo(failure > 5);
+            if (blockedFor > 0) {
+                // Retry a second after the backoff ends, as a client honouring Retry-After would
+                clock.addAndGet(blockedFor + TimeUnit.SECONDS.toNanos(1));
+                assertThat(tracker.tryBegin("alice", IP)).isZero();
+            }
+
+            assertThat(tracker.recordFailure("alice", IP)).isEqualTo(failure == 20);
+        }
+    }
+
+    @Test
+    void failureWindowMustOutlastTheMaximumBackoff() {
+        assertThatThrownBy(() -> tracker(900, 900)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void parallelFailuresGetNoMoreAttemptsThanSequentialOnes() throws Exception {
+        LoginAttemptTracker tracker = tracker(900, 86400);
+        int threads = 32;
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch attempted = new CountDownLatch(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> admitted = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                admitted.add(executor.submit(() -> {
+                    start.await();
+                    boolean admit = tracker.tryBegin("alice", IP) == 0;
+                    attempted.countDown();
+                    // Every attempt is in flight before any of them fails
+                    attempted.await();
+                    if (admit) {
+                        tracker.recordFailure("alice", IP);
+                    }
+                    return admit;
+                }));
+            }
+            start.countDown();
+
+            int count = 0;
+            for (Future<Boolean> future : admitted) {
+                count += future.get(10, TimeUnit.SECONDS) ? 1 : 0;
+            }
+            assertThat(count).isEqualTo(5);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(tracker.tryBegin("alice", IP)).isPositive();
+    }
+
+    @Test
+    void releasedAttemptsAreNotCounted() {
+        LoginAttemptTracker tracker = tracker(900, 86400);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(tracker.tryBegin("alice", IP)).isZero();
+            tracker.release("alice", IP);
+        }
+    }
+
+    private LoginAttemptTracker tracker(long backoffMaxSeconds, long failureWindowSeconds) {
+        return new LoginAttemptTracker(5, 50, 20, 1, backoffMaxSeconds, failureWindowSeconds, 1000,
+                new SimpleMeterRegistry(), clock::get);
+    }
+}
@@ -0,0 +1,79 @@
+package com.nathan.secure_notes.security;
+
+import com.nathan.secure_notes.model.RevokedToken;
+import com.nathan.secure_notes.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+
+class TokenRevocationListTest {
+
+    private RevokedTokenRepository repository;
+    private TokenRevocationList revocations;
+
+    @BeforeEach
+    void setUp() {
+        repository = Mockito.mock(RevokedTokenRepository.class);
+        Mockito.when(repository.save(any(RevokedToken.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        revocations = new TokenRevocationList(repository, new VerifiedTokenCache(100, meterRegistry),
+                900000, 2, meterRegistry);
+    }
+
+    @Test
+    void revokesSingleTokenById() {
+        JwtClaims revoked = claims("alice", Instant.now());
+        JwtClaims other = claims("alice", Instant.now());
+        revocations.revoke(revoked);
+
+        assertThat(revocations.isRevoked(revoked)).isTrue();
+        assertThat(revocations.isRevoked(other)).isFalse();
+    }
+
+    @Test
+    void revokesEveryTokenIssuedBeforeNotBefore() {
+        JwtClaims before = claims("alice", Instant.now().truncatedTo(ChronoUnit.SECONDS));
+        revocations.revokeAllForUser("alice");
+        JwtClaims after = claims("alice", Instant.now().truncatedTo(ChronoUnit.SECONDS).plusSeconds(1));
+
+        assertThat(revocations.isRevoked(before)).isTrue();
+        assertThat(revocations.isRevoked(after)).isFalse();
+        assertThat(revocations.isRevoked(claims("bob", before.issuedAt()))).isFalse();
+    }
+
+    @Test
+    void fallsBackToNotBeforeWhenIdsAreFull() {
+        revocations.revoke(claims("alice", Instant.now()));
+        revocations.revoke(claims("alice", Instant.now()));
+        JwtClaims third = claims("bob", Instant.now().truncatedTo(ChronoUnit.SECONDS));
+        JwtClaims sibling = claims("bob", third.issuedAt());
+        revocations.revoke(third);
+
+        assertThat(revocations.isRevoked(sibling)).isTrue();
+    }
+
+    @Test
+    void appliesRevocationsWrittenByOtherInstances() {
+        String tokenId = UUID.randomUUID().toString();
+        Mockito.when(repository.findRecent(any(), any())).thenReturn(List.of(
+                new RevokedToken(tokenId, "carol", null, Instant.now().plusSeconds(60))));
+        revocations.sync();
+
+        assertThat(revocations.isRevoked(new JwtClaims("carol", Instant.now(), Instant.now().plusSeconds(60),
+                List.of(), 3L, 0, tokenId))).isTrue();
+    }
+
+    private static JwtClaims claims(String subject, Instant issuedAt) {
+        return new JwtClaims(subject, issuedAt, issuedAt.plusSeconds(900), List.of("ROLE_USER"), 1L, 0,
+                UUID.randomUUID().toString());
+    }
+}
@@ -0,0 +1,62 @@
+package com.nathan.secure_notes.service.impl;
+
+import com.nathan.secure_notes.model.Notes;
+import com.nathan.secure_notes.repository.NoteRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class NoteContentHashBackfillTest {
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void duplicateNotesAreMarkedSoTheBackfillFinishesOnce() {
+        Notes original = noteRepository.save(new Notes("first", "alice"));
+        Notes duplicate = noteRepository.save(new Notes("second", "alice"));
+        Notes other = noteRepository.save(new Notes("third", "bob"));
+        entityManager.flush();
+        // As written before content_hash existed, which the unique index and entity callbacks now prevent
+        entityManager.createNativeQuery(
+                "update notes set content = 'same words', content_hash = null, content_length = null")
+                .executeUpdate();
+        entityManager.clear();
+
+        NoteContentHashBackfill backfill = new NoteContentHashBackfill(noteRepository,
+                new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(backfill, "batchSize", 2);
+        backfill.run();
+        entityManager.clear();
+
+        assertThat(noteRepository.findByContentHashIsNullAndIdGreaterThanOrderByIdAsc(0L, Limit.of(10))).isEmpty();
+        List<Notes> notes = noteRepository.findAllById(List.of(original.getId(), duplicate.getId(), other.getId()));
+        assertThat(notes).extracting(Notes::getContentLength).containsOnly(10);
+        assertThat(noteRepository.findById(original.getId())).get()
+                .extracting(Notes::getContentHash).isEqualTo(Notes.hashContent("same words"));
+        assertThat(noteRepository.findById(duplicate.getId())).get()
+                .extracting(Notes::getContentHash).isEqualTo("dup:" + duplicate.getId());
+        assertThat(noteRepository.findById(other.getId())).get()
+                .extracting(Notes::getContentHash).isEqualTo(Notes.hashContent("same words"));
+    }
+}
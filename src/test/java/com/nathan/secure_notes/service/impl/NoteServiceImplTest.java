@@ -0,0 +1,159 @@
+package com.nathan.secure_notes.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nathan.secure_notes.dto.requests.BulkNoteRequest;
+import com.nathan.secure_notes.dto.responses.BulkNoteResponse;
+import com.nathan.secure_notes.exception.APIException;
+import com.nathan.secure_notes.model.Notes;
+import com.nathan.secure_notes.repository.NoteRepository;
+import com.nathan.secure_notes.search.NoteSearchIndex;
+import jakarta.persistence.EntityManager;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Runs the export against the h2 profile's database, so the real streaming query, its fetch-size
+ * hint and the detaching of written notes are all exercised
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class NoteServiceImplTest {
+
+    private static final int NOTE_COUNT = 2_000;
+    private static final int CONTENT_LENGTH = 4096;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    /**
+     * The persistence context is checked as each line is written: it must never hold more than
+     * the note being exported, whatever the number of notes
+     */
+    @Test
+    void exportNotesForUserKeepsOneNoteManagedAtATime() throws Exception {
+        for (int i = 0; i < NOTE_COUNT; i++) {
+            entityManager.persist(new Notes(String.format("%0" + CONTENT_LENGTH + "d", i), "alice"));
+        }
+        entityManager.persist(new Notes("someone else's note", "bob"));
+        entityManager.flush();
+        entityManager.clear();
+
+        NoteServiceImpl noteService = new NoteServiceImpl(noteRepository, entityManager,
+                new ObjectMapper().findAndRegisterModules(), mock(NoteSearchIndex.class));
+        ManagedEntitiesProbe out = new ManagedEntitiesProbe(entityManager.unwrap(SessionImplementor.class));
+        noteService.exportNotesForUser("alice", out);
+
+        assertThat(out.maxManaged).isEqualTo(1);
+        assertThat(entityManager.unwrap(SessionImplementor.class).getPersistenceContext()
+                .getNumberOfManagedEntities()).isZero();
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<Long> ids = new ArrayList<>();
+        for (String line : out.toString().split("\n")) {
+            JsonNode note = objectMapper.readTree(line);
+            assertThat(note.get("ownerUserName").asText()).isEqualTo("alice");
+            assertThat(note.get("content").asText()).hasSize(CONTENT_LENGTH);
+            ids.add(note.get("id").asLong());
+        }
+        assertThat(ids).hasSize(NOTE_COUNT).isSorted().doesNotHaveDuplicates();
+    }
+
+    @Test
+    void searchRejectsPagesBeyondTheMaximumDepth() throws Exception {
+        NoteSearchIndex searchIndex = mock(NoteSearchIndex.class);
+        NoteServiceImpl noteService = new NoteServiceImpl(noteRepository, entityManager, new ObjectMapper(),
+                searchIndex);
+        ReflectionTestUtils.setField(noteService, "defaultPageSize", 50);
+        ReflectionTestUtils.setField(noteService, "maxPageSize", 500);
+        ReflectionTestUtils.setField(noteService, "maxSearchResults", 10_000);
+
+        // (page + 1) * size overflows an int here
+        assertThatThrownBy(() -> noteService.searchNotesForUser("alice", "words", Integer.MAX_VALUE, 500))
+                .isInstanceOf(APIException.class);
+        assertThatThrownBy(() -> noteService.searchNotesForUser("alice", "words", 200, 50))
+                .isInstanceOf(APIException.class);
+        verify(searchIndex, never()).search(anyString(), anyString(), anyInt(), anyInt());
+
+        noteService.searchNotesForUser("alice", "words", 199, 50);
+        verify(searchIndex).search("alice", "words", 199, 50);
+    }
+
+    @Test
+    void bulkRejectsCreatesAndUpdatesWithoutContent() {
+        Notes existing = noteRepository.save(new Notes("kept", "alice"));
+        NoteServiceImpl noteService = new NoteServiceImpl(noteRepository, entityManager, new ObjectMapper(),
+                mock(NoteSearchIndex.class));
+        ReflectionTestUtils.setField(noteService, "maxBulkOperations", 100);
+
+        BulkNoteResponse response = noteService.applyBulkForUser("alice", List.of(
+                operation(BulkNoteRequest.OperationType.CREATE, null, null),
+                operation(BulkNoteRequest.OperationType.UPDATE, existing.getId(), null),
+                operation(BulkNoteRequest.OperationType.CREATE, null, "")));
+        entityManager.flush();
+
+        assertThat(response.getResults()).extracting(BulkNoteResponse.Result::success)
+                .containsExactly(false, false, true);
+        assertThat(response.getResults().get(0).message()).isEqualTo("Content is required");
+        assertThat(noteRepository.findById(existing.getId())).get()
+                .extracting(Notes::getContent).isEqualTo("kept");
+    }
+
+    private static BulkNoteRequest.Operation operation(BulkNoteRequest.OperationType type, Long noteId,
+                                                       String content) {
+        BulkNoteRequest.Operation operation = new BulkNoteRequest.Operation();
+        operation.setType(type);
+        operation.setNoteId(noteId);
+        operation.setContent(content);
+        return operation;
+    }
+
+    /**
+     * Records how many entities are managed whenever a note's line is completed
+     */
+    private static class ManagedEntitiesProbe extends OutputStream {
+        private final SessionImplementor session;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        int maxManaged;
+
+        ManagedEntitiesProbe(SessionImplementor session) {
+            this.session = session;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            buffer.write(b);
+            if (b == '\n') {
+                maxManaged = Math.max(maxManaged, session.getPersistenceContext().getNumberOfManagedEntities());
+            }
+        }
+
+        @Override
+        public String toString() {
+            return buffer.toString();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.nathan.secure_notes.service.impl;
+
+import com.nathan.secure_notes.repository.UserRepository;
+import com.nathan.secure_notes.repository.UserRepository.UserIdentity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SignupAvailabilityIndexTest {
+
+    @Test
+    void syncPicksUpUsersRegisteredOnOtherInstances() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.streamIdentities()).thenReturn(Stream.empty());
+        when(userRepository.findIdentitiesUpdatedSince(any(LocalDateTime.class))).thenReturn(List.of());
+        when(userRepository.findIdentitiesByUserNameOrEmail(anyString(), isNull()))
+                .thenReturn(List.of(identity("alice", "alice@example.com")));
+        SignupAvailabilityIndex index = new SignupAvailabilityIndex(userRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), 1000, 0.01,
+                new SimpleMeterRegistry());
+        index.onApplicationReady();
+        index.sync();
+
+        // Registered elsewhere after warm-up, so only the sync can tell this instance about it
+        when(userRepository.findIdentitiesUpdatedSince(any(LocalDateTime.class)))
+                .thenReturn(List.of(identity("alice", "alice@example.com")));
+        assertThat(index.check("alice", null).usernameAvailable()).isTrue();
+
+        index.sync();
+
+        assertThat(index.check("alice", null).usernameAvailable()).isFalse();
+        assertThat(index.check("bob", null).usernameAvailable()).isTrue();
+    }
+
+    private static UserIdentity identity(String userName, String email) {
+        return new UserIdentity() {
+            @Override
+            public String getUserName() {
+                return userName;
+            }
+
+            @Override
+            public String getEmail() {
+                return email;
+            }
+        };
+    }
+}
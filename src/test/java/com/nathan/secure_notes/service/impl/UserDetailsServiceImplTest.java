@@ -0,0 +1,37 @@
+package com.nathan.secure_notes.service.impl;
+
+import com.nathan.secure_notes.repository.UserRepository;
+import com.nathan.secure_notes.security.UserDetailsCache;
+import com.nathan.secure_notes.security.UserSecurityVersions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class UserDetailsServiceImplTest {
+
+    @Test
+    void updatePasswordKeepsTheAccountLocked() {
+        UserDetailsServiceImpl userDetailsService = new UserDetailsServiceImpl(mock(UserRepository.class),
+                new UserSecurityVersions(100, 3600), new UserDetailsCache(100, 300, new SimpleMeterRegistry()),
+                new SyncTaskExecutor());
+        UserDetailsImpl locked = new UserDetailsImpl(1L, "alice", "alice@example.com", "old-hash", true, 3,
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        locked.setAccountNonLocked(false);
+
+        UserDetails updated = userDetailsService.updatePassword(locked, "new-hash");
+
+        assertThat(updated.getPassword()).isEqualTo("new-hash");
+        assertThat(updated.isAccountNonLocked()).isFalse();
+        assertThat(updated.isEnabled()).isEqualTo(locked.isEnabled());
+        assertThat(updated.isAccountNonExpired()).isEqualTo(locked.isAccountNonExpired());
+        assertThat(updated.isCredentialsNonExpired()).isEqualTo(locked.isCredentialsNonExpired());
+        assertThat(((UserDetailsImpl) updated).getSecurityVersion()).isEqualTo(3);
+    }
+}
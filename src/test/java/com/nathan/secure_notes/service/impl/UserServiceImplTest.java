@@ -0,0 +1,148 @@
+package com.nathan.secure_notes.service.impl;
+
+import com.nathan.secure_notes.model.AppRole;
+import com.nathan.secure_notes.model.RevokedToken;
+import com.nathan.secure_notes.model.Role;
+import com.nathan.secure_notes.model.User;
+import com.nathan.secure_notes.repository.PasswordResetTokenRepository;
+import com.nathan.secure_notes.repository.RevokedTokenRepository;
+import com.nathan.secure_notes.repository.RoleRepository;
+import com.nathan.secure_notes.repository.UserRepository;
+import com.nathan.secure_notes.security.AuthTokenFilter;
+import com.nathan.secure_notes.security.JwtUtils;
+import com.nathan.secure_notes.security.LoginAttemptTracker;
+import com.nathan.secure_notes.security.TokenRevocationList;
+import com.nathan.secure_notes.security.UserDetailsCache;
+import com.nathan.secure_notes.security.UserSecurityVersions;
+import com.nathan.secure_notes.security.VerifiedTokenCache;
+import com.nathan.secure_notes.service.RefreshTokenService;
+import com.nathan.secure_notes.service.TotpService;
+import com.nathan.secure_notes.util.EmailService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * A lock made through one instance must reject the user's tokens on another instance that
+ * still trusts its claims, once that instance has picked up the revocation
+ */
+class UserServiceImplTest {
+
+    private static final String JWT_SECRET = "mySecretKey123912738aopsgjnspkmndfsopkvajoirjg94gf2opfng2moknm";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<RevokedToken> revokedRows = new ArrayList<>();
+    private User user;
+    private JwtUtils jwtUtils;
+    private RefreshTokenService refreshTokenService;
+    private UserServiceImpl userService;
+
+    @BeforeEach
+    void setUp() {
+        user = new User("alice", "alice@example.com", "hash");
+        user.setUserId(1L);
+        user.setRole(new Role(AppRole.ROLE_USER));
+
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+
+        jwtUtils = new JwtUtils(meterRegistry);
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", JWT_SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 900000);
+        ReflectionTestUtils.invokeMethod(jwtUtils, "init");
+
+        VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(100, meterRegistry);
+        refreshTokenService = mock(RefreshTokenService.class);
+        userService = new UserServiceImpl(
+                mock(PasswordEncoder.class),
+                userRepository,
+                mock(RoleRepository.class),
+                mock(PasswordResetTokenRepository.class),
+                mock(EmailService.class),
+                mock(TotpService.class),
+                verifiedTokenCache,
+                new UserSecurityVersions(100, 3600),
+                new UserDetailsCache(100, 300, meterRegistry),
+                mock(AdminUserCountCache.class),
+                mock(LoginAttemptTracker.class),
+                mock(SignupAvailabilityIndex.class),
+                revocationList(verifiedTokenCache),
+                refreshTokenService);
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void lockingUserRejectsTokensOnOtherInstances() throws Exception {
+        String token = jwtUtils.generateTokenFromUsername(UserDetailsImpl.build(user));
+
+        // Another instance that has seen the user at its current security version
+        VerifiedTokenCache otherCache = new VerifiedTokenCache(100, meterRegistry);
+        TokenRevocationList otherRevocations = revocationList(otherCache);
+        UserSecurityVersions otherVersions = new UserSecurityVersions(100, 3600);
+        otherVersions.record("alice", user.getSecurityVersion());
+        UserDetailsServiceImpl otherUserDetails = new UserDetailsServiceImpl(mock(UserRepository.class), otherVersions,
+                new UserDetailsCache(100, 300, meterRegistry), new SyncTaskExecutor());
+        AuthTokenFilter otherFilter = new AuthTokenFilter(jwtUtils, otherUserDetails, otherCache, otherVersions,
+                otherRevocations);
+        ReflectionTestUtils.setField(otherFilter, "statelessAuth", true);
+
+        assertThat(authenticate(otherFilter, token)).isNotNull();
+
+        userService.updateAccountLockStatus(1L, true);
+        otherRevocations.sync();
+
+        assertThat(authenticate(otherFilter, token)).isNull();
+    }
+
+    @Test
+    void securityChangesRevokeRefreshTokens() {
+        userService.updateAccountEnabledStatus(1L, false);
+
+        verify(refreshTokenService).revokeAllForUser("alice");
+    }
+
+    private TokenRevocationList revocationList(VerifiedTokenCache verifiedTokenCache) {
+        RevokedTokenRepository repository = mock(RevokedTokenRepository.class);
+        when(repository.save(any(RevokedToken.class))).thenAnswer(invocation -> {
+            RevokedToken row = invocation.getArgument(0);
+            revokedRows.add(row);
+            return row;
+        });
+        when(repository.findRecent(any(), any())).thenAnswer(invocation -> List.copyOf(revokedRows));
+        return new TokenRevocationList(repository, verifiedTokenCache, 900000, 1000, meterRegistry);
+    }
+
+    private static Authentication authenticate(AuthTokenFilter filter, String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/notes");
+        request.addHeader("Authorization", "Bearer " + token);
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}